@@ -0,0 +1,135 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import util.AdventOfCode;
+import util.DayLoader;
+import util.DayRegistry;
+import util.FileIO;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for parse(), part1() and part2() of every solved day.
+ * Inputs are read from the cached files under data/, so no day is fetched
+ * while benchmarking. The scale parameter repeats the cached input that many
+ * times to show how each day behaves as the input grows; only days marked
+ * @ScalableInput can be scaled, as repeating other inputs makes them invalid.
+ *
+ * Run main() from the project root to benchmark every solved day with a cached input
+ * and report allocation rates through the GC profiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DayBenchmark {
+
+    @State(Scope.Thread)
+    public static class Loaded {
+        // "year/day", overridden by main() with every solved day found through DayRegistry
+        @Param({"2018/1"})
+        public String date;
+
+        @Param({"1", "4", "16"})
+        public int scale;
+
+        AdventOfCode challenge;
+
+        @Setup(Level.Trial)
+        public void load() {
+            String[] parts = date.split("/");
+            int year = Integer.parseInt(parts[0]);
+            int day = Integer.parseInt(parts[1]);
+            if (scale != 1 && !DayRegistry.scalable(year, day)) {
+                throw new IllegalStateException("Input of " + date + " cannot be scaled");
+            }
+
+            List<String> cached = FileIO.getFileAsList(FileIO.getAOCInputFilename(year, day));
+            List<String> input = new ArrayList<>(cached.size() * scale);
+            for (int i = 0; i < scale; i++) {
+                input.addAll(cached);
+            }
+
+            challenge = DayLoader.getClassForDay(year, day, input);
+            if (challenge == null) throw new IllegalStateException("Unable to load class for " + date);
+        }
+    }
+
+    // part1()/part2() may consume the parsed model, so re-parse before every call
+    @State(Scope.Thread)
+    public static class Fresh {
+        @Setup(Level.Invocation)
+        public void reset(Loaded loaded) {
+            loaded.challenge.parse();
+        }
+    }
+
+    @Benchmark
+    public Object parse(Loaded loaded) {
+        loaded.challenge.parse();
+        return loaded.challenge;
+    }
+
+    @Benchmark
+    public Object part1(Loaded loaded, Fresh fresh) {
+        return loaded.challenge.part1();
+    }
+
+    @Benchmark
+    public Object part2(Loaded loaded, Fresh fresh) {
+        return loaded.challenge.part2();
+    }
+
+    // solved days with a cached input, either those that are @ScalableInput or the rest
+    private static String[] cachedDays(boolean scalable) {
+        List<String> dates = new ArrayList<>();
+        for (int year = 2015; year <= Year.now().getValue(); year++) {
+            for (int day : DayRegistry.implemented(year)) {
+                if (DayRegistry.scalable(year, day) == scalable
+                        && Files.exists(Paths.get(FileIO.getAOCInputFilename(year, day)))) {
+                    dates.add(year + "/" + day);
+                }
+            }
+        }
+        return dates.toArray(new String[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String[] scalable = cachedDays(true);
+        String[] fixed = cachedDays(false);
+        if (scalable.length == 0 && fixed.length == 0) {
+            System.err.println("No cached inputs found under data/. Run util.Runner first.");
+            return;
+        }
+
+        // scalable days at every requested scale, all other days at their real size
+        if (scalable.length > 0) {
+            run(scalable, System.getProperty("scale", "1,4,16").split(","));
+        }
+        if (fixed.length > 0) {
+            run(fixed, new String[]{"1"});
+        }
+    }
+
+    private static void run(String[] dates, String[] scales) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(DayBenchmark.class.getSimpleName())
+                .param("date", dates)
+                .param("scale", scales)
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
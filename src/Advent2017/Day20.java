@@ -2,21 +2,20 @@ package Advent2017;
 
 import javafx.geometry.Point3D;
 import util.AdventOfCode;
-import util.FileIO;
+import util.BinaryModel;
+import util.LineScanner;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-public class Day20 extends AdventOfCode {
-
-    // regex to extract the three 3d vectors from each input line
-    private static final Pattern pattern =
-            Pattern.compile("<([-\\d,]+)>, [a-z]=<([-\\d,]+)>, [a-z]=<([-\\d,]+)");
+public class Day20 extends AdventOfCode implements BinaryModel {
 
     private List<Particle> particles;
     private int closest;
+    private int[] initial; // nine ints of p, v and a per particle, as parsed
 
     class Particle {
         int num;
@@ -50,6 +49,12 @@ public class Day20 extends AdventOfCode {
         part2Description = "Remaining particles after collisions have been resolved: ";
     }
 
+    public Day20(DataInputStream model) throws IOException {
+        super(model);
+        part1Description = "Number of particle closest to <0, 0, 0>: ";
+        part2Description = "Remaining particles after collisions have been resolved: ";
+    }
+
     private int tick() {
         return particles.stream()
                 .map(this::move)
@@ -68,7 +73,7 @@ public class Day20 extends AdventOfCode {
 
     @Override
     public Object part2() {
-        parse();
+        reset();
         for (int i = 0; i < 300; i++) {
             tick();
             collisions();
@@ -92,19 +97,41 @@ public class Day20 extends AdventOfCode {
                 .collect(Collectors.toList());
     }
 
+    // particles as parsed, before any tick
+    private void reset() {
+        particles = new ArrayList<>(initial.length / 9);
+        for (int num = 0, i = 0; i < initial.length; num++, i += 9) {
+            particles.add(new Particle(num,
+                    new Point3D(initial[i], initial[i + 1], initial[i + 2]),
+                    new Point3D(initial[i + 3], initial[i + 4], initial[i + 5]),
+                    new Point3D(initial[i + 6], initial[i + 7], initial[i + 8])));
+        }
+    }
+
+    // particles are stored as a count followed by the nine ints of p, v and a for each particle
+    @Override
+    public void writeModel(DataOutputStream out) throws IOException {
+        out.writeInt(initial.length / 9);
+        for (int value : initial) out.writeInt(value);
+    }
+
+    @Override
+    public void readModel(DataInputStream in) throws IOException {
+        initial = new int[in.readInt() * 9];
+        for (int i = 0; i < initial.length; i++) initial[i] = in.readInt();
+        reset();
+    }
+
     @Override
     public void parse() {
-        particles = new ArrayList<>();
-        int count = 0;
+        initial = new int[input.size() * 9];
+        LineScanner scanner = new LineScanner();
+        int i = 0;
         for (String each : input) {
-            Matcher m = pattern.matcher(each);
-            m.find();
-            Point3D[] points = new Point3D[3];
-            for (int i = 0; i < 3; i++) {
-                int[] verts = FileIO.StringArrayToInt(m.group(i + 1).split(","));
-                points[i] = new Point3D(verts[0], verts[1], verts[2]);
-            }
-            particles.add(new Particle(count++, points[0], points[1], points[2]));
+            // the three 3d vectors on each line: p=<x,y,z>, v=<x,y,z>, a=<x,y,z>
+            scanner.reset(each);
+            for (int j = 0; j < 9; j++) initial[i++] = scanner.nextInt();
         }
+        reset();
     }
 }
\ No newline at end of file
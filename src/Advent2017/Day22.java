@@ -1,38 +1,54 @@
 package Advent2017;
 
 import util.AdventOfCode;
-import util.FileIO;
-
+import util.Automaton;
+import util.ByteGrid;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class Day22 extends AdventOfCode {
-    private boolean[][] grid;
-    private State[][] grid_2;
-    private int x_size;
-    private int y_size;
-    private Carrier carrier;
+    private ByteGrid grid; // 1 = infected
+    private ByteGrid grid_2; // State ordinal of each node
+    private Automaton carrier;
+    private int start_x;
+    private int start_y;
 
-    public enum Direction {
-        UP, DOWN, LEFT, RIGHT
-    }
+    // burst counts default to the puzzle's, AOC_DAY22_PART1_BURSTS / AOC_DAY22_PART2_BURSTS override them
+    private static final long PART1_BURSTS = envLong("AOC_DAY22_PART1_BURSTS", 10000);
+    private static final long PART2_BURSTS = envLong("AOC_DAY22_PART2_BURSTS", 10000000);
+
+    // bursts between progress reports (and checkpoints) on stderr, 0 for none
+    private static final long PROGRESS_INTERVAL = envLong("AOC_DAY22_PROGRESS", 100000000);
+
+    // if set, each part saves its carrier and grid to <AOC_DAY22_CHECKPOINT>.partN at every
+    // progress report and resumes from there on the next run with the same input
+    private static final String CHECKPOINT = System.getenv("AOC_DAY22_CHECKPOINT");
 
     public enum State {
         CLEAN, WEAKENED, INFECTED, FLAGGED
     }
 
-    class Carrier{
-        int x_loc;
-        int y_loc;
-        Direction dir;
-
-        Carrier(int x_start, int y_start){
-            this.x_loc = x_start;
-            this.y_loc = y_start;
-            dir = Direction.UP;
-        }
-    }
+    // part 1: clean nodes become infected and turn the carrier left, infected nodes the reverse
+    private static final byte[] NEXT_STATE_1 = {1, 0};
+    private static final int[] TURN_1 = {3, 1};
 
+    // part 2, indexed by State ordinal: clean turns left, weakened goes straight,
+    // infected turns right and flagged reverses
+    private static final byte[] NEXT_STATE_2 = {
+            (byte) State.WEAKENED.ordinal(),
+            (byte) State.INFECTED.ordinal(),
+            (byte) State.FLAGGED.ordinal(),
+            (byte) State.CLEAN.ordinal()
+    };
+    private static final int[] TURN_2 = {3, 0, 1, 2};
 
     public Day22(List<String> input) {
         super(input);
@@ -40,328 +56,133 @@ public class Day22 extends AdventOfCode {
         part2Description = "Number of bursts causing a node to become infected (pt. 2): ";
     }
 
-    private int tick() {
-        int curr_x = carrier.x_loc;
-        int curr_y = carrier.y_loc;
-        int ret = 0;
-
-        // if infected, turn right. If healthy, turn left
-        switch (carrier.dir) {
-            case UP:
-                carrier.dir = (grid[curr_y][curr_x] == true) ? Direction.RIGHT : Direction.LEFT;
-                break;
-            case RIGHT:
-                carrier.dir = (grid[curr_y][curr_x] == true) ? Direction.DOWN : Direction.UP;
-                break;
-            case DOWN:
-                carrier.dir = (grid[curr_y][curr_x] == true) ? Direction.LEFT : Direction.RIGHT;
-                break;
-            case LEFT:
-                carrier.dir = (grid[curr_y][curr_x] == true) ? Direction.UP : Direction.DOWN;
-                break;
-        }
-
-        // clean or infect current node
-        if(grid[curr_y][curr_x] == true){
-            grid[curr_y][curr_x] = false;
-        }
-        else{
-            grid[curr_y][curr_x] = true;
-            ret = 1;
-        }
-
-        // determine next spot
-        int next_x = curr_x;
-        int next_y = curr_y;
-        switch (carrier.dir) {
-            case UP:
-                next_y--;
-                break;
-            case RIGHT:
-                next_x++;
-                break;
-            case DOWN:
-                next_y++;
-                break;
-            case LEFT:
-                next_x--;
-                break;
-        }
-
-        // resize and shift, if necessary
-        if(next_x < 0){
-            // add col on left
-            boolean[][] new_grid = new boolean[y_size][x_size+1];
-            for(int i = 0; i < y_size; i++)
-            {
-                boolean[] gridRow = grid[i];
-                System.arraycopy(gridRow, 0, new_grid[i], 1, x_size);
-            }
-            x_size = x_size+1;
-            carrier.x_loc = 0;
-            grid = new boolean[y_size][];
-            for (int i = 0; i < y_size; i++) {
-                grid[i] = new_grid[i].clone();
-            }
-        }
-        else if(next_x >= x_size){
-            // add col on right
-            boolean[][] new_grid = new boolean[y_size][x_size+1];
-            for(int i = 0; i < y_size; i++)
-            {
-                boolean[] gridRow = grid[i];
-                System.arraycopy(gridRow, 0, new_grid[i], 0, x_size);
-            }
-            x_size = x_size+1;
-            carrier.x_loc = x_size-1;
-            grid = new boolean[y_size][];
-            for (int i = 0; i < y_size; i++) {
-                grid[i] = new_grid[i].clone();
-            }
-        }
-        else if(next_y < 0){
-            // add row on top
-            boolean[][] new_grid = new boolean[y_size+1][x_size];
-            for(int i = 0; i < y_size; i++)
-            {
-                boolean[] gridRow = grid[i];
-                System.arraycopy(gridRow, 0, new_grid[i+1], 0, x_size);
-            }
-            y_size = y_size+1;
-            carrier.y_loc = 0;
-            grid = new boolean[y_size][];
-            for (int i = 0; i < y_size; i++) {
-                grid[i] = new_grid[i].clone();
-            }
-        }
-        else if(next_y >= y_size){
-            // add row on bottom
-            boolean[][] new_grid = new boolean[y_size+1][x_size];
-            for(int i = 0; i < y_size; i++)
-            {
-                boolean[] gridRow = grid[i];
-                System.arraycopy(gridRow, 0, new_grid[i], 0, x_size);
-            }
-            y_size = y_size+1;
-            carrier.y_loc = y_size-1;
-            grid = new boolean[y_size][];
-            for (int i = 0; i < y_size; i++) {
-                grid[i] = new_grid[i].clone();
+    // the given area of the grid, with the carrier shown as H (on a clean node) or I (infected)
+    private void print_grid(int minX, int minY, int maxX, int maxY){
+        for(int y = minY; y < maxY; y++){
+            for(int x = minX; x < maxX; x++) {
+                if ((carrier.x() == x) && (carrier.y() == y)){
+                    //System.out.println("x = " + x + ", y = " + y);
+                    if (grid.get(x, y) == 1) out.print('I');
+                    else out.print('H');
+                }
+                else {
+                    if (grid.get(x, y) == 1) out.print('#');
+                    else out.print('.');
+                }
             }
-        }
-        else{
-            //System.out.println("bang");
-            // only need to update carrier loc when there is no resize
-            carrier.x_loc = next_x;
-            carrier.y_loc = next_y;
+            out.println("");
         }
 
-        return ret;
     }
 
-    private int tick_2() {
-        int curr_x = carrier.x_loc;
-        int curr_y = carrier.y_loc;
-        int ret = 0;
+    @Override
+    public Object part1() {
+        carrier = start(1, NEXT_STATE_1, TURN_1, 1, grid, PART1_BURSTS);
+        if (PART1_BURSTS > 10000) {
+            carrier.runUntil(PART1_BURSTS, PROGRESS_INTERVAL, (a, rate) -> progress(1, a, rate));
+            return carrier.totalCounted();
+        }
+
+        // the puzzle's own short run is worth looking at: take it one burst at a time to
+        // print only the map and the nodes the carrier visited, not all of the grown grid
+        int minX = 0, minY = 0, maxX = input.get(0).length(), maxY = input.size();
+        while (carrier.totalSteps() < PART1_BURSTS) {
+            carrier.run(1);
+            minX = Math.min(minX, carrier.x());
+            minY = Math.min(minY, carrier.y());
+            maxX = Math.max(maxX, carrier.x() + 1);
+            maxY = Math.max(maxY, carrier.y() + 1);
+        }
+        grid = carrier.grid();
+        print_grid(minX, minY, maxX, maxY);
+        return carrier.totalCounted();
+    }
 
-        // turn
-        if(grid_2[curr_y][curr_x] == State.CLEAN){
-            switch (carrier.dir) {
-                case UP:
-                    carrier.dir = Direction.LEFT;
-                    break;
-                case RIGHT:
-                    carrier.dir = Direction.UP;
-                    break;
-                case DOWN:
-                    carrier.dir = Direction.RIGHT;
-                    break;
-                case LEFT:
-                    carrier.dir = Direction.DOWN;
-                    break;
-            }
-        }
-        else if(grid_2[curr_y][curr_x] == State.INFECTED){
-            switch (carrier.dir) {
-                case UP:
-                    carrier.dir = Direction.RIGHT;
-                    break;
-                case RIGHT:
-                    carrier.dir = Direction.DOWN;
-                    break;
-                case DOWN:
-                    carrier.dir = Direction.LEFT;
-                    break;
-                case LEFT:
-                    carrier.dir = Direction.UP;
-                    break;
-            }
-        }
-        else if(grid_2[curr_y][curr_x] == State.FLAGGED){
-            switch (carrier.dir) {
-                case UP:
-                    carrier.dir = Direction.DOWN;
-                    break;
-                case RIGHT:
-                    carrier.dir = Direction.LEFT;
-                    break;
-                case DOWN:
-                    carrier.dir = Direction.UP;
-                    break;
-                case LEFT:
-                    carrier.dir = Direction.RIGHT;
-                    break;
+    @Override
+    public Object part2() {
+        parse();
+        carrier = start(2, NEXT_STATE_2, TURN_2, State.INFECTED.ordinal(), grid_2, PART2_BURSTS);
+        carrier.runUntil(PART2_BURSTS, PROGRESS_INTERVAL, (a, rate) -> progress(2, a, rate));
+        return carrier.totalCounted();
+    }
+
+    // a fresh carrier at the start position, or the checkpointed one if it can be resumed
+    private Automaton start(int part, byte[] nextState, int[] turns, int countedState, ByteGrid grid, long bursts) {
+        Automaton resumed = loadCheckpoint(part);
+        if (resumed != null) {
+            if (resumed.sameRules(nextState, turns, countedState) && resumed.totalSteps() <= bursts) {
+                System.err.println("Day 22 part " + part + ": resuming after " + resumed.totalSteps() + " bursts");
+                return resumed;
             }
+            System.err.println("Day 22 part " + part + ": checkpoint does not fit this run, starting over");
         }
+        return new Automaton(nextState, turns, countedState, grid, start_x, start_y);
+    }
 
-        // update node state
-        if(grid_2[curr_y][curr_x] == State.CLEAN){
-            grid_2[curr_y][curr_x] = State.WEAKENED;
-        }
-        else if(grid_2[curr_y][curr_x] == State.WEAKENED){
-            grid_2[curr_y][curr_x] = State.INFECTED;
-            ret = 1;
-        }
-        else if(grid_2[curr_y][curr_x] == State.INFECTED){
-            grid_2[curr_y][curr_x] = State.FLAGGED;
-        }
-        else if(grid_2[curr_y][curr_x] == State.FLAGGED){
-            grid_2[curr_y][curr_x] = State.CLEAN;
-        }
+    private void progress(int part, Automaton automaton, double burstsPerSecond) {
+        System.err.printf("Day 22 part %d: %d bursts, %d infections, %.1f M bursts/sec%n",
+                part, automaton.totalSteps(), automaton.totalCounted(), burstsPerSecond / 1e6);
+        saveCheckpoint(part, automaton);
+    }
 
-        // determine next spot
-        int next_x = curr_x;
-        int next_y = curr_y;
-        switch (carrier.dir) {
-            case UP:
-                next_y--;
-                break;
-            case RIGHT:
-                next_x++;
-                break;
-            case DOWN:
-                next_y++;
-                break;
-            case LEFT:
-                next_x--;
-                break;
-        }
+    private Path checkpointFile(int part) {
+        return CHECKPOINT == null ? null : Paths.get(CHECKPOINT + ".part" + part);
+    }
 
-        // resize and shift, if necessary
-        if(next_x < 0){
-            // add col on left
-            State[][] new_grid = new State[y_size][x_size+1];
-            for(int i = 0; i < y_size; i++)
-            {
-                State[] gridRow = grid_2[i];
-                System.arraycopy(gridRow, 0, new_grid[i], 1, x_size);
-                new_grid[i][0] = State.CLEAN;
-            }
-            x_size = x_size+1;
-            carrier.x_loc = 0;
-            grid_2 = new State[y_size][];
-            for (int i = 0; i < y_size; i++) {
-                grid_2[i] = new_grid[i].clone();
-            }
+    // checkpoints start with the width and height of the input they were made from and
+    // the SHA-256 of its lines
+    private Automaton loadCheckpoint(int part) {
+        Path file = checkpointFile(part);
+        if (file == null || !Files.exists(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != input.get(0).length() || in.readInt() != input.size()) return null;
+            byte[] digest = new byte[32];
+            in.readFully(digest);
+            if (!Arrays.equals(digest, inputDigest())) return null;
+            return Automaton.load(in);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
         }
-        else if(next_x >= x_size){
-            // add col on right
-            State[][] new_grid = new State[y_size][x_size+1];
-            for(int i = 0; i < y_size; i++)
-            {
-                State[] gridRow = grid_2[i];
-                System.arraycopy(gridRow, 0, new_grid[i], 0, x_size);
-                new_grid[i][x_size] = State.CLEAN;
-            }
-            x_size = x_size+1;
-            carrier.x_loc = x_size-1;
-            grid_2 = new State[y_size][];
-            for (int i = 0; i < y_size; i++) {
-                grid_2[i] = new_grid[i].clone();
-            }
-        }
-        else if(next_y < 0){
-            // add row on top
-            State[][] new_grid = new State[y_size+1][x_size];
-            for(int i = 0; i < y_size; i++)
-            {
-                State[] gridRow = grid_2[i];
-                System.arraycopy(gridRow, 0, new_grid[i+1], 0, x_size);
-            }
-            Arrays.fill(new_grid[0],State.CLEAN);
-            y_size = y_size+1;
-            carrier.y_loc = 0;
-            grid_2 = new State[y_size][];
-            for (int i = 0; i < y_size; i++) {
-                grid_2[i] = new_grid[i].clone();
-            }
-        }
-        else if(next_y >= y_size){
-            // add row on bottom
-            State[][] new_grid = new State[y_size+1][x_size];
-            for(int i = 0; i < y_size; i++)
-            {
-                State[] gridRow = grid_2[i];
-                System.arraycopy(gridRow, 0, new_grid[i], 0, x_size);
-            }
-            Arrays.fill(new_grid[y_size],State.CLEAN);
-            y_size = y_size+1;
-            carrier.y_loc = y_size-1;
-            grid_2 = new State[y_size][];
-            for (int i = 0; i < y_size; i++) {
-                grid_2[i] = new_grid[i].clone();
-            }
-        }
-        else{
-            //System.out.println("bang");
-            // only need to update carrier loc when there is no resize
-            carrier.x_loc = next_x;
-            carrier.y_loc = next_y;
-        }
-
-        return ret;
     }
 
-    private void print_grid(){
-        for(int y = 0; y < y_size; y++){
-            for(int x = 0; x < x_size; x++) {
-                if ((carrier.x_loc == x) && (carrier.y_loc == y)){
-                    //System.out.println("x = " + x + ", y = " + y);
-                    if (grid[y][x] == true) System.out.print('I');
-                    else System.out.print('H');
-                }
-                else {
-                    if (grid[y][x] == true) System.out.print('#');
-                    else System.out.print('.');
-                }
-            }
-            System.out.println("");
+    // written to a temporary file first so an interrupted save leaves the last checkpoint intact
+    private void saveCheckpoint(int part, Automaton automaton) {
+        Path file = checkpointFile(part);
+        if (file == null) return;
+        Path tmp = Paths.get(file + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(input.get(0).length());
+            out.writeInt(input.size());
+            out.write(inputDigest());
+            automaton.save(out);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-
     }
 
-    @Override
-    public Object part1() {
-        int infection_bursts = 0;
-        //print_grid();
-
-        for (int i = 0; i < 10000; i++) {
-            //System.out.println(i);
-            infection_bursts += tick();
+    private byte[] inputDigest() {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            for (String line : input) {
+                sha.update(line.getBytes(StandardCharsets.UTF_8));
+                sha.update((byte) '\n');
+            }
+            return sha.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // every JRE has it
         }
-        print_grid();
-        return infection_bursts;
     }
 
-    @Override
-    public Object part2() {
-        parse();
-        int infection_bursts = 0;
-
-        for (int i = 0; i < 10000000; i++) {
-            infection_bursts += tick_2();
-        }
-        return infection_bursts;
+    private static long envLong(String name, long fallback) {
+        String value = System.getenv(name);
+        return value == null ? fallback : Long.parseLong(value.trim());
     }
 
 
@@ -396,20 +217,17 @@ public class Day22 extends AdventOfCode {
 
         int count = 0;
 
-        x_size = (input.get(0)).length();
-        y_size = input.size();
-        grid = new boolean[y_size][x_size];
-        grid_2 = new State[y_size][x_size];
-        carrier = new Carrier(x_size/2,y_size/2);
+        int x_size = (input.get(0)).length();
+        int y_size = input.size();
+        grid = new ByteGrid(x_size, y_size);
+        grid_2 = new ByteGrid(x_size, y_size);
+        start_x = x_size/2;
+        start_y = y_size/2;
         for (String each : input) {
             for(int i = 0; i < each.length(); i++){
                 if(each.charAt(i) == '#'){
-                    grid[count][i] = true;
-                    grid_2[count][i] = State.INFECTED;
-                }
-                else{
-                    grid[count][i] = false;
-                    grid_2[count][i] = State.CLEAN;
+                    grid.set(i, count, (byte) 1);
+                    grid_2.set(i, count, (byte) State.INFECTED.ordinal());
                 }
             }
             count++;
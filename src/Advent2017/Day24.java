@@ -1,18 +1,13 @@
 package Advent2017;
 
 import util.AdventOfCode;
+import util.LineScanner;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class Day24 extends AdventOfCode {
 
-    // regex to extract the components from each input line
-    private static final Pattern pattern =
-            Pattern.compile("(\\d+)[/](\\d+)");
-
     private List<Component> components;
     private List<Bridge> bridges;
     private Bridge strongest;
@@ -60,7 +55,7 @@ public class Day24 extends AdventOfCode {
         }
 
         void print_component(){
-            System.out.println(this.left + "/" + this.right);
+            out.println(this.left + "/" + this.right);
         }
 
     }
@@ -87,13 +82,13 @@ public class Day24 extends AdventOfCode {
 
         void print_bridge(){
             for(Component each : br){
-                System.out.print(each.left + "/" + each.right + " ");
+                out.print(each.left + "/" + each.right + " ");
             }
-            System.out.print("--- " + this.strength() + " (");
+            out.print("--- " + this.strength() + " (");
             for(Component each : available){
-                System.out.print(each.left + "/" + each.right + " ");
+                out.print(each.left + "/" + each.right + " ");
             }
-            System.out.println(")");
+            out.println(")");
         }
 
         // adds element to bridge
@@ -217,14 +212,21 @@ public class Day24 extends AdventOfCode {
         return strongest_longest.strength();
     }
 
+    // part2 reads strongest_longest, which is only set by part1
+    @Override
+    public boolean partsIndependent() {
+        return false;
+    }
+
     @Override
     public void parse() {
         components = new ArrayList<>();
         int count = 0;
+        LineScanner scanner = new LineScanner();
         for (String each : input) {
-            Matcher m = pattern.matcher(each);
-            m.find();
-            components.add(new Component(Integer.parseInt(m.group(1)),Integer.parseInt(m.group(2))));
+            // each component is written as left/right
+            scanner.reset(each);
+            components.add(new Component(scanner.nextInt(),scanner.nextInt()));
         }
     }
 }
@@ -1,20 +1,28 @@
 package Advent2017;
 
 import util.AdventOfCode;
+import util.LineScanner;
+import util.TuringMachine;
 
-import java.util.HashMap;
 import java.util.List;
 
 public class Day25 extends AdventOfCode {
-    private HashMap<Integer,Integer> tape;
-    private Integer cursor_pos;
-    private State state;
-    private int curr_step;
-    private int check_step;
+    // parts of a rule, as bits of the flags parse() keeps per rule
+    private static final int HAS_WRITE = 1;
+    private static final int HAS_MOVE = 2;
+    private static final int HAS_NEXT = 4;
+    private static final int COMPLETE = HAS_WRITE | HAS_MOVE | HAS_NEXT;
 
-    public enum State {
-        A, B, C, D, E, F
-    }
+    // blueprint compiled into tables indexed by (state << 1 | current value)
+    private int[] write;
+    private int[] move;
+    private int[] next;
+    private int start_state;
+    private long check_step;
+
+    // tape bits the machine handles as one block per lookup, 0 to step one cell at a time
+    private static final int BLOCK_WIDTH = System.getenv("AOC_DAY25_BLOCK_WIDTH") == null
+            ? 8 : Integer.parseInt(System.getenv("AOC_DAY25_BLOCK_WIDTH").trim());
 
     public Day25(List<String> input) {
         super(input);
@@ -22,114 +30,87 @@ public class Day25 extends AdventOfCode {
         part2Description = "???: ";
     }
 
-    int checksum(){
-        return tape.size();
-    }
-
-    void execute(){
-        tape.clear();
-        cursor_pos = 0;
-        state = State.A;
-        curr_step = 0;
-
-        while(curr_step < check_step){
-            //System.out.println(curr_step + ": " + checksum() + " (" + cursor_pos + ")");
-            Integer curr_val = 0;
-            if(tape.get(cursor_pos) == null) {}//tape.put(cursor_pos,0);
-            else curr_val = tape.get(cursor_pos);
-
-            if(state == State.A){
-                if(curr_val == 0){
-                    tape.put(cursor_pos,1);
-                    cursor_pos++;
-                    state = State.B;
-                }
-                else if(curr_val == 1){
-                    //tape.put(cursor_pos,0);
-                    tape.remove(cursor_pos);
-                    cursor_pos--;
-                    state = State.C;
-                }
-            }
-            else if(state == State.B){
-                if(curr_val == 0){
-                    tape.put(cursor_pos,1);
-                    cursor_pos--;
-                    state = State.A;
-                }
-                else if(curr_val == 1){
-                    tape.put(cursor_pos,1);
-                    cursor_pos++;
-                    state = State.C;
-                }
-            }
-            else if(state == State.C){
-                if(curr_val == 0){
-                    tape.put(cursor_pos,1);
-                    cursor_pos++;
-                    state = State.A;
-                }
-                else if(curr_val == 1){
-                    //tape.put(cursor_pos,0);
-                    tape.remove(cursor_pos);
-                    cursor_pos--;
-                    state = State.D;
-                }
-            }
-            else if(state == State.D){
-                if(curr_val == 0){
-                    tape.put(cursor_pos,1);
-                    cursor_pos--;
-                    state = State.E;
-                }
-                else if(curr_val == 1){
-                    tape.put(cursor_pos,1);
-                    cursor_pos--;
-                    state = State.C;
-                }
-            }
-            else if(state == State.E){
-                if(curr_val == 0){
-                    tape.put(cursor_pos,1);
-                    cursor_pos++;
-                    state = State.F;
-                }
-                else if(curr_val == 1){
-                    tape.put(cursor_pos,1);
-                    cursor_pos++;
-                    state = State.A;
-                }
-            }
-            else if(state == State.F){
-                if(curr_val == 0){
-                    tape.put(cursor_pos,1);
-                    cursor_pos++;
-                    state = State.A;
-                }
-                else if(curr_val == 1){
-                    tape.put(cursor_pos,1);
-                    cursor_pos++;
-                    state = State.E;
-                }
-            }
-
-            curr_step++;
-        }
+    long execute(){
+        TuringMachine machine = new TuringMachine(write, move, next, start_state);
+        machine.setBlockWidth(BLOCK_WIDTH);
+        machine.run(check_step);
+        return machine.ones();
     }
 
     @Override
     public Object part1() {
-        execute();
-        return checksum();
+        return execute();
     }
     @Override
     public Object part2() {
         return 0;
     }
 
+    // states are named A, B, C, ...; each rule line fills the table entry of the
+    // state and value named by the last "In state" and "If the current value" lines
     @Override
     public void parse() {
-        tape = new HashMap<>();
-        check_step = 12261543;
+        int states = 0;
+        for (String each : input) {
+            if (each.trim().startsWith("In state ")) states++;
+        }
+        write = new int[states * 2];
+        move = new int[states * 2];
+        next = new int[states * 2];
+        start_state = 0;
+        check_step = 0;
+
+        int[] filled = new int[states * 2];
+
+        LineScanner scanner = new LineScanner();
+        int rule = -1;
+        int state = -1;
+        for (String each : input) {
+            String line = each.trim();
+            if (line.isEmpty()) continue;
+
+            if (line.startsWith("Begin in state ")) {
+                start_state = stateIndex(line, states);
+            } else if (line.startsWith("Perform a diagnostic checksum after ")) {
+                scanner.reset(line);
+                check_step = scanner.nextLong();
+            } else if (line.startsWith("In state ")) {
+                state = stateIndex(line, states);
+            } else if (line.startsWith("If the current value is ") && state >= 0) {
+                scanner.reset(line);
+                rule = state << 1 | (scanner.nextInt() & 1);
+            } else if (line.startsWith("- Write the value ") && rule >= 0) {
+                scanner.reset(line);
+                write[rule] = scanner.nextInt();
+                filled[rule] |= HAS_WRITE;
+            } else if (line.startsWith("- Move one slot to the ") && rule >= 0) {
+                move[rule] = line.contains("left") ? -1 : 1;
+                filled[rule] |= HAS_MOVE;
+            } else if (line.startsWith("- Continue with state ") && rule >= 0) {
+                next[rule] = stateIndex(line, states);
+                filled[rule] |= HAS_NEXT;
+            } else {
+                System.err.println("Malformed blueprint line: " + each);
+            }
+        }
+
+        // a missing line would otherwise leave a rule that moves 0 slots, found only when run
+        for (int i = 0; i < filled.length; i++) {
+            if (filled[i] != COMPLETE) {
+                String missing = (filled[i] & HAS_WRITE) == 0 ? "value to write"
+                        : (filled[i] & HAS_MOVE) == 0 ? "move" : "next state";
+                throw new IllegalArgumentException("Blueprint has no " + missing + " for state "
+                        + (char) ('A' + (i >> 1)) + " with current value " + (i & 1));
+            }
+        }
+    }
+
+    // index of the state named by the letter before the trailing '.' or ':'
+    private static int stateIndex(String line, int states) {
+        int index = line.charAt(line.length() - 2) - 'A';
+        if (index < 0 || index >= states) {
+            throw new IllegalArgumentException("Unknown state in: " + line);
+        }
+        return index;
     }
 }
@@ -1,50 +1,252 @@
 package Advent2018;
 
 import util.AdventOfCode;
+import util.LineScanner;
+import util.ScalableInput;
+import util.collections.IntArrayList;
+import util.collections.IntIntHashMap;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
 
+@ScalableInput
 public class Day1 extends AdventOfCode {
+    // returned by firstRepeat() when no frequency is ever reached twice
+    static final long NO_REPEAT = Long.MIN_VALUE;
+
+    // frequency changes, in input order
+    private IntArrayList deltas;
+    // running sum of all changes, i.e. the answer to part 1
+    private int finalFrequency;
+
     public Day1(List<String> input) {
         super(input);
         part1Description = "Final frequency: ";
         part2Description = "First frequency reached twice: ";
     }
 
+    public Day1(Stream<? extends CharSequence> lines) {
+        super(lines);
+        part1Description = "Final frequency: ";
+        part2Description = "First frequency reached twice: ";
+    }
+
     @Override
     public Object part1() {
-        int frequency = 0;
-
-        for (String each : input) {
-            frequency += Integer.parseInt(each);
-        }
-        return frequency;
+        return finalFrequency;
     }
 
     @Override
     public Object part2() {
-        Integer frequency = 0;
-        int iterations = 0;
-        HashMap<Integer, Integer> freqMap = new HashMap<>(); // tracks visited frequencies
-
-        while(true) {
-            for (String each : input) {
-                Integer timesSeen = freqMap.get(frequency);
-                if (timesSeen == null) {
-                    freqMap.put(frequency, new Integer(1));
-                } else {
-                    return frequency;
-                }
-
-                frequency += Integer.parseInt(each);
+        long repeat = firstRepeat(deltas.toArray(), 0, deltas.size());
+        if (repeat == NO_REPEAT) {
+            System.err.println("No frequency is ever reached twice!");
+        }
+        return repeat;
+    }
+
+    /**
+     * First frequency reached twice when the changes deltas[from, to) are applied
+     * over and over starting from 0, found without simulating the passes.
+     *
+     * Pass k visits k * drift + p for every prefix sum p of the first pass. If the
+     * first pass has no repeat, a later visit can only repeat a prefix sum q with
+     * q = p + m * drift for some m > 0, which happens at step m * n + (index of p).
+     * Such p and q share a residue modulo the drift, so sorting the prefix sums by
+     * residue and then value puts every closest pair next to each other.
+     * @return the frequency, or NO_REPEAT if there is none
+     */
+    static long firstRepeat(int[] deltas, int from, int to) {
+        int n = to - from;
+        if (n == 0) return NO_REPEAT;
+
+        int[] prefix = new int[n];
+        IntIntHashMap index = new IntIntHashMap(n); // prefix sum -> step it is first reached
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            if (index.containsKey(sum)) return sum; // repeat within the first pass
+            index.put(sum, i);
+            prefix[i] = sum;
+            sum += deltas[from + i];
+        }
+        if (sum == 0) return 0; // the second pass starts back at 0
+
+        // negating everything for a negative drift lets later passes always move upwards
+        int sign = sum < 0 ? -1 : 1;
+        long drift = Math.abs((long) sum);
+        long min = Long.MAX_VALUE;
+        for (int p : prefix) min = Math.min(min, sign * (long) p);
+
+        // residue << 32 | value - min, so sorting orders by residue, then value
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            long value = sign * (long) prefix[i];
+            keys[i] = Math.floorMod(value, drift) << 32 | (value - min);
+        }
+        Arrays.sort(keys);
+
+        long bestStep = Long.MAX_VALUE;
+        long best = NO_REPEAT;
+        for (int i = 0; i + 1 < n; i++) {
+            if (keys[i] >>> 32 != keys[i + 1] >>> 32) continue;
+            long low = (keys[i] & 0xFFFFFFFFL) + min;
+            long high = (keys[i + 1] & 0xFFFFFFFFL) + min;
+
+            long step = (high - low) / drift * n + index.get((int) (sign * low), 0);
+            if (step < bestStep) {
+                bestStep = step;
+                best = sign * high;
             }
-            System.err.println("No duplicate found on interation " + (++iterations));
         }
+        return best;
     }
 
     @Override
     public void parse() {
+        parse(input.iterator());
+    }
+
+    // keeps only the changes and their running sum, never the lines themselves
+    @Override
+    protected void parse(Iterator<? extends CharSequence> lines) {
+        deltas = new IntArrayList(1024);
+        finalFrequency = readDeltas(lines, deltas);
+    }
+
+    // appends the change on each line to deltas, returning their sum
+    private static int readDeltas(Iterator<? extends CharSequence> lines, IntArrayList deltas) {
+        int sum = 0;
+        LineScanner scanner = new LineScanner();
+
+        while (lines.hasNext()) {
+            scanner.reset(lines.next());
+            if (!scanner.hasNextInt()) continue;
+
+            int delta = scanner.nextInt();
+            deltas.add(delta);
+            sum += delta;
+        }
+        return sum;
+    }
+
+    /**
+     * Many sequences of frequency changes packed one after another into a single
+     * buffer, so thousands of candidate inputs can be solved together without a
+     * Day1 instance (and its lines) for each:
+     * <pre>
+     *     Day1.BatchResult result = new Day1.Batch().add(lines1).add(lines2).evaluate();
+     * </pre>
+     */
+    public static class Batch {
+        private final IntArrayList deltas = new IntArrayList(1024);
+        // sequence i is deltas[offsets[i], offsets[i + 1])
+        private final IntArrayList offsets = new IntArrayList();
+
+        public Batch() {
+            offsets.add(0);
+        }
+
+        public Batch add(int[] sequence) {
+            for (int delta : sequence) deltas.add(delta);
+            offsets.add(deltas.size());
+            return this;
+        }
+
+        /**
+         * Add a sequence given as puzzle input lines
+         */
+        public Batch add(Iterable<? extends CharSequence> lines) {
+            readDeltas(lines.iterator(), deltas);
+            offsets.add(deltas.size());
+            return this;
+        }
+
+        public int size() {
+            return offsets.size() - 1;
+        }
 
+        public BatchResult evaluate() {
+            return evaluate(ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Solve both parts for every sequence, split across the pool's threads
+         */
+        public BatchResult evaluate(ForkJoinPool pool) {
+            int[] packed = deltas.toArray();
+            int[] starts = offsets.toArray();
+            BatchResult result = new BatchResult(size());
+
+            long start = System.nanoTime();
+            pool.invoke(new EvaluateTask(packed, starts, 0, size(), result));
+            result.nanos = System.nanoTime() - start;
+            return result;
+        }
+    }
+
+    /**
+     * Answers for each sequence of a Batch, in the order they were added
+     */
+    public static class BatchResult {
+        public final int[] finalFrequencies;
+        // NO_REPEAT for sequences that never reach a frequency twice
+        public final long[] firstRepeats;
+        private long nanos;
+
+        BatchResult(int size) {
+            finalFrequencies = new int[size];
+            firstRepeats = new long[size];
+        }
+
+        public double sequencesPerSecond() {
+            return finalFrequencies.length / (Math.max(nanos, 1) / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d sequences in %.3f ms (%.0f sequences/sec)",
+                    finalFrequencies.length, nanos / 1e6, sequencesPerSecond());
+        }
+    }
+
+    // splits its range of sequences in half until there are few enough changes to solve directly
+    private static class EvaluateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int SPLIT_DELTAS = 1 << 14;
+
+        private final int[] deltas;
+        private final int[] offsets;
+        private final int from;
+        private final int to;
+        private final BatchResult result;
+
+        EvaluateTask(int[] deltas, int[] offsets, int from, int to, BatchResult result) {
+            this.deltas = deltas;
+            this.offsets = offsets;
+            this.from = from;
+            this.to = to;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && offsets[to] - offsets[from] > SPLIT_DELTAS) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new EvaluateTask(deltas, offsets, from, mid, result),
+                        new EvaluateTask(deltas, offsets, mid, to, result));
+                return;
+            }
+
+            for (int i = from; i < to; i++) {
+                int sum = 0;
+                for (int j = offsets[i]; j < offsets[i + 1]; j++) sum += deltas[j];
+                result.finalFrequencies[i] = sum;
+                result.firstRepeats[i] = firstRepeat(deltas, offsets[i], offsets[i + 1]);
+            }
+        }
     }
 }
@@ -1,13 +1,34 @@
 package Advent2018;
 
 import util.AdventOfCode;
+import util.ScalableInput;
+import util.collections.LongIntHashMap;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
+@ScalableInput
 public class Day2 extends AdventOfCode {
+    // letterFlags() bits
+    private static final int DOUBLE = 1;
+    private static final int TRIPLE = 2;
+
+    // inputs with at least this many IDs are counted on all cores
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int CHUNK_SIZE = 1 << 12;
+
+    // multiplier of the polynomial ID hashes, mod 2^64
+    private static final long HASH_BASE = 0x100000001B3L;
+
     public Day2(List<String> input) {
         super(input);
         part1Description = "Checksum: ";
@@ -16,69 +37,391 @@ public class Day2 extends AdventOfCode {
 
     @Override
     public Object part1() {
-        int letterDoubles = 0;
-        int letterTriples = 0;
-
-        // sort each string, and then check for adjacent identical characters via regex
-        for (String each : input) {
-            char[] ar = each.toCharArray();
-            Arrays.sort(ar);
-            String sorted = String.valueOf(ar);
+        return checksum(input, input.size() >= PARALLEL_THRESHOLD);
+    }
 
-            Pattern p2 = Pattern.compile("((\\w)(?!\\2)|^)((\\w)\\4)(?!\\4)");
-            Matcher m2 = p2.matcher(sorted);
+    /**
+     * Number of IDs with some letter exactly twice times the number with some
+     * letter exactly three times
+     * @param parallel split the IDs into chunks counted on all cores
+     */
+    static long checksum(List<? extends CharSequence> ids, boolean parallel) {
+        long counts; // doubles << 32 | triples
+        if (parallel) {
+            int chunks = (ids.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            counts = IntStream.range(0, chunks).parallel()
+                    .mapToLong(c -> countFlags(ids, c * CHUNK_SIZE, Math.min(ids.size(), (c + 1) * CHUNK_SIZE)))
+                    .sum();
+        } else {
+            counts = countFlags(ids, 0, ids.size());
+        }
+        return (counts >>> 32) * (counts & 0xFFFFFFFFL);
+    }
 
-            Pattern p3 = Pattern.compile("((\\w)(?!\\2)|^)((\\w)\\4\\4)(?!\\4)");
-            Matcher m3 = p3.matcher(sorted);
+    // doubles << 32 | triples among ids[from, to)
+    private static long countFlags(List<? extends CharSequence> ids, int from, int to) {
+        int[] histogram = new int[26];
+        long doubles = 0;
+        long triples = 0;
+        for (int i = from; i < to; i++) {
+            int flags = letterFlags(ids.get(i), histogram);
+            if ((flags & DOUBLE) != 0) doubles++;
+            if ((flags & TRIPLE) != 0) triples++;
+        }
+        return doubles << 32 | triples;
+    }
 
-            if (m2.find()) {
-                letterDoubles++;
-                System.err.println("Double letter in " + sorted);
+    /**
+     * @param histogram 26 zeroes, left as zeroes afterwards so it can be reused
+     * @return DOUBLE if some letter occurs exactly twice, plus TRIPLE if some occurs exactly three times
+     */
+    static int letterFlags(CharSequence id, int[] histogram) {
+        int length = id.length();
+        for (int i = 0; i < length; i++) {
+            int letter = id.charAt(i) - 'a';
+            if (letter < 0 || letter >= 26) {
+                // undo and fall back to sorting for anything but lowercase IDs
+                for (int j = 0; j < i; j++) histogram[id.charAt(j) - 'a'] = 0;
+                return sortedFlags(id);
             }
+            histogram[letter]++;
+        }
 
-            if (m3.find()) {
-                letterTriples++;
-                System.err.println("Triple letter in " + sorted);
-            }
+        int flags = 0;
+        for (int i = 0; i < length; i++) {
+            int letter = id.charAt(i) - 'a';
+            int count = histogram[letter];
+            if (count == 2) flags |= DOUBLE;
+            else if (count == 3) flags |= TRIPLE;
+            histogram[letter] = 0;
         }
+        return flags;
+    }
+
+    // same as letterFlags() for any characters, by measuring runs of the sorted ID
+    private static int sortedFlags(CharSequence id) {
+        char[] chars = id.toString().toCharArray();
+        Arrays.sort(chars);
 
-        return letterDoubles * letterTriples;
+        int flags = 0;
+        int runStart = 0;
+        for (int i = 1; i <= chars.length; i++) {
+            if (i == chars.length || chars[i] != chars[runStart]) {
+                if (i - runStart == 2) flags |= DOUBLE;
+                else if (i - runStart == 3) flags |= TRIPLE;
+                runStart = i;
+            }
+        }
+        return flags;
     }
 
     @Override
     public Object part2() {
-        // iteratively compare each string pair
-        for (int i = 0; i < input.size(); i++) {
-            for (int j = i + 1; j < input.size(); j++) {
-                String str1 = input.get(i);
-                String str2 = input.get(j);
-
-                // only compare equal-length strings
-                if (str1.length() != str2.length()) {
-                    continue;
+        Match match = firstOneApart(input, input.size() >= PARALLEL_THRESHOLD);
+        if (match == null) {
+            return "ERR: Failed to find string pair!";
+        }
+        return commonLetters(input.get(match.first), input.get(match.second));
+    }
+
+    /**
+     * The first pair (by first, then second ID) of equal length IDs that differ in
+     * exactly one position, or null if there is none. Expected O(n L) rather than
+     * comparing every pair.
+     * @param parallel search all positions at once on the common pool
+     */
+    static Match firstOneApart(List<? extends CharSequence> ids, boolean parallel) {
+        Match[] best = new Match[1];
+        Consumer<Match> keepFirst = match -> {
+            synchronized (best) {
+                if (best[0] == null || match.first < best[0].first
+                        || (match.first == best[0].first && match.second < best[0].second)) {
+                    best[0] = match;
                 }
+            }
+        };
 
-                int diff = 0;
-                int idx = 0;
-                int lastDiff = -1;
+        if (parallel) {
+            streamOneApart(ids, ForkJoinPool.commonPool(), keepFirst);
+        } else {
+            MaskedIndex index = new MaskedIndex(ids);
+            for (int position = 0; position < index.maxLength; position++) {
+                index.search(position, keepFirst);
+            }
+        }
+        return best[0];
+    }
 
-                // count indices where characters differ between str1 and str2
-                while ((diff <= 1) && (idx < str1.length())) {
-                    if (str1.charAt(idx) != str2.charAt(idx)) {
-                        diff++;
-                        lastDiff = idx;
-                    }
+    /**
+     * Every pair of equal length IDs that differ in exactly one position, sorted
+     * by first then second ID
+     */
+    public static List<Match> allOneApart(List<? extends CharSequence> ids, ForkJoinPool pool) {
+        Queue<Match> found = new ConcurrentLinkedQueue<>();
+        streamOneApart(ids, pool, found::add);
+        List<Match> matches = new ArrayList<>(found);
+        matches.sort(BY_IDS);
+        return matches;
+    }
+
+    /**
+     * Search every position of the IDs as its own task on the pool, handing each
+     * pair that differs in exactly one position to out as soon as it is found.
+     * A pair is only found by the task for the position it differs at, so it is
+     * reported once.
+     * @param out called from the pool's threads, in no particular order
+     */
+    public static SearchStats streamOneApart(List<? extends CharSequence> ids, ForkJoinPool pool, Consumer<Match> out) {
+        long start = System.nanoTime();
+        MaskedIndex index = new MaskedIndex(ids);
+        LongAdder indexed = new LongAdder();
+        LongAdder matches = new LongAdder();
+        Consumer<Match> counted = match -> {
+            matches.increment();
+            out.accept(match);
+        };
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(index.maxLength);
+        for (int i = 0; i < index.maxLength; i++) {
+            final int position = i;
+            tasks.add(pool.submit(() -> indexed.add(index.search(position, counted))));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return new SearchStats(ids.size(), index.maxLength, indexed.sum(), matches.sum(), System.nanoTime() - start);
+    }
+
+    /**
+     * Counters of a streamOneApart() search
+     */
+    public static class SearchStats {
+        public final int ids;
+        public final int positions;
+        // IDs added to the index of some position, summed over positions
+        public final long indexed;
+        public final long matches;
+        public final long nanos;
+
+        SearchStats(int ids, int positions, long indexed, long matches, long nanos) {
+            this.ids = ids;
+            this.positions = positions;
+            this.indexed = indexed;
+            this.matches = matches;
+            this.nanos = nanos;
+        }
+
+        public double idsIndexedPerSecond() {
+            return indexed / (Math.max(nanos, 1) / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d IDs x %d positions, %d matches in %.3f ms (%.0f IDs indexed/sec)",
+                    ids, positions, matches, nanos / 1e6, idsIndexedPerSecond());
+        }
+    }
+
+    /**
+     * Every pair of equal length IDs that differ in at most k positions, sorted by
+     * first then second ID.
+     *
+     * By pigeonhole, two IDs that differ in at most k positions agree on at least
+     * one of any k + 1 disjoint segments, so only IDs whose segment hashes match
+     * are compared. A pair is reported for the first segment it agrees on.
+     */
+    public static List<Match> withinDistance(List<? extends CharSequence> ids, int k) {
+        if (k < 0) throw new IllegalArgumentException("Distance must not be negative.");
+        int n = ids.size();
+        int segments = k + 1;
+        List<Match> matches = new ArrayList<>();
+        LongIntHashMap heads = new LongIntHashMap(n); // segment hash -> latest ID with it
+        int[] next = new int[n];                      // earlier ID with the same segment hash
+
+        for (int segment = 0; segment < segments; segment++) {
+            heads.clear();
+            for (int id = 0; id < n; id++) {
+                CharSequence s = ids.get(id);
+                int length = s.length();
+                int from = segmentStart(length, segment, segments);
+                int to = segmentStart(length, segment + 1, segments);
 
-                    idx++;
+                long key = length * HASH_BASE + segment;
+                for (int i = from; i < to; i++) key = key * HASH_BASE + s.charAt(i);
+
+                int head = heads.get(key, -1);
+                for (int other = head; other >= 0; other = next[other]) {
+                    int distance = distanceIfFirstAgreement(ids.get(other), s, segment, segments, k);
+                    if (distance >= 0) matches.add(new Match(other, id, distance));
+                }
+                next[id] = head;
+                heads.put(key, id);
+            }
+        }
+
+        matches.sort(BY_IDS);
+        return matches;
+    }
+
+    private static int segmentStart(int length, int segment, int segments) {
+        return (int) ((long) length * segment / segments);
+    }
+
+    // Hamming distance of a and b if it is at most k and segment is the first one they agree on, else -1
+    private static int distanceIfFirstAgreement(CharSequence a, CharSequence b, int segment, int segments, int k) {
+        int length = a.length();
+        if (length != b.length()) return -1;
+
+        int distance = 0;
+        for (int s = 0; s < segments; s++) {
+            int from = segmentStart(length, s, segments);
+            int to = segmentStart(length, s + 1, segments);
+            int before = distance;
+            for (int i = from; i < to; i++) {
+                if (a.charAt(i) != b.charAt(i) && ++distance > k) return -1;
+            }
+            if (s < segment && distance == before) return -1; // agreed on an earlier segment
+            if (s == segment && distance != before) return -1; // hash collision
+        }
+        return distance;
+    }
+
+    // characters a and b have in common at the same positions
+    private static String commonLetters(CharSequence a, CharSequence b) {
+        StringBuilder common = new StringBuilder(a.length());
+        for (int i = 0; i < a.length(); i++) {
+            if (a.charAt(i) == b.charAt(i)) common.append(a.charAt(i));
+        }
+        return common.toString();
+    }
+
+    private static final Comparator<Match> BY_IDS = (a, b) ->
+            a.first != b.first ? Integer.compare(a.first, b.first) : Integer.compare(a.second, b.second);
+
+    /**
+     * Pair of IDs, by index in the input
+     */
+    public static class Match {
+        public final int first;
+        public final int second;
+        public final int distance;
+
+        Match(int first, int second, int distance) {
+            this.first = first;
+            this.second = second;
+            this.distance = distance;
+        }
+
+        @Override
+        public String toString() {
+            return first + "-" + second + " (distance " + distance + ")";
+        }
+    }
+
+    // For one position at a time, finds IDs that are the same except at that position:
+    // the polynomial hash of an ID minus its character at the position is the same for
+    // all of them, and candidates with equal keys are checked character by character.
+    // Repeated IDs are indexed once, so every candidate that passes the check is a
+    // match and the work grows with the number of matches, not with the copies.
+    private static class MaskedIndex {
+        private final List<? extends CharSequence> ids;
+        private final long[] hashes; // sum of s[i] * HASH_BASE^(length - 1 - i)
+        private final long[] powers; // HASH_BASE^i
+        private final int maxLength;
+        private final int[] copyOf;   // first ID equal to this one, or -1 if this is the first
+        private final int[] nextCopy; // next ID equal to this one, or -1
+
+        MaskedIndex(List<? extends CharSequence> ids) {
+            this.ids = ids;
+            int n = ids.size();
+            hashes = new long[n];
+            copyOf = new int[n];
+            nextCopy = new int[n];
+            int[] lastCopy = new int[n];                          // latest copy of each first ID
+            int[] sameHash = new int[n];                          // earlier first ID with the same hash
+            LongIntHashMap firstWithHash = new LongIntHashMap(n); // hash -> latest first ID with it
+            int longest = 0;
+            for (int id = 0; id < n; id++) {
+                CharSequence s = ids.get(id);
+                long hash = 0;
+                for (int i = 0; i < s.length(); i++) hash = hash * HASH_BASE + s.charAt(i);
+                hashes[id] = hash;
+                longest = Math.max(longest, s.length());
+
+                copyOf[id] = -1;
+                nextCopy[id] = -1;
+                int head = firstWithHash.get(hash, -1);
+                for (int other = head; other >= 0; other = sameHash[other]) {
+                    if (equal(ids.get(other), s)) {
+                        copyOf[id] = other;
+                        nextCopy[lastCopy[other]] = id;
+                        lastCopy[other] = id;
+                        break;
+                    }
                 }
+                if (copyOf[id] < 0) {
+                    lastCopy[id] = id;
+                    sameHash[id] = head;
+                    firstWithHash.put(hash, id);
+                }
+            }
+            maxLength = longest;
+            powers = new long[Math.max(longest, 1)];
+            powers[0] = 1;
+            for (int i = 1; i < longest; i++) powers[i] = powers[i - 1] * HASH_BASE;
+        }
+
+        /**
+         * Report pairs that differ exactly at the given position, and nowhere else.
+         * Safe to call for different positions at the same time.
+         * @return number of IDs long enough to be indexed at this position
+         */
+        int search(int position, Consumer<Match> out) {
+            int n = hashes.length;
+            LongIntHashMap heads = new LongIntHashMap(n); // masked hash -> latest ID with it
+            int[] next = new int[n];                      // earlier ID with the same masked hash
+            int indexed = 0;
+
+            for (int id = 0; id < n; id++) {
+                CharSequence s = ids.get(id);
+                int length = s.length();
+                if (length <= position) continue;
+                indexed++;
+                if (copyOf[id] >= 0) continue; // reported along with the first copy
 
-                if (diff <= 1) {
-                    return str1.substring(0, lastDiff) + str1.substring(lastDiff + 1);
+                long key = hashes[id] - s.charAt(position) * powers[length - 1 - position];
+                int head = heads.get(key, -1);
+                for (int other = head; other >= 0; other = next[other]) {
+                    if (differOnlyAt(ids.get(other), s, position)) {
+                        // every copy of one pairs up with every copy of the other
+                        for (int a = other; a >= 0; a = nextCopy[a]) {
+                            for (int b = id; b >= 0; b = nextCopy[b]) {
+                                out.accept(a < b ? new Match(a, b, 1) : new Match(b, a, 1));
+                            }
+                        }
+                    }
                 }
+                next[id] = head;
+                heads.put(key, id);
             }
+            return indexed;
         }
 
-        return "ERR: Failed to find string pair!";
+        private static boolean equal(CharSequence a, CharSequence b) {
+            if (a.length() != b.length()) return false;
+            for (int i = 0; i < a.length(); i++) {
+                if (a.charAt(i) != b.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        private static boolean differOnlyAt(CharSequence a, CharSequence b, int position) {
+            if (a.length() != b.length() || a.charAt(position) == b.charAt(position)) return false;
+            for (int i = 0; i < a.length(); i++) {
+                if (i != position && a.charAt(i) != b.charAt(i)) return false;
+            }
+            return true;
+        }
     }
 
     @Override
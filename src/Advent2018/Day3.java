@@ -1,149 +1,184 @@
 package Advent2018;
 
 import util.AdventOfCode;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import util.BinaryModel;
+import util.LineScanner;
+import util.collections.IntArrayList;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+public class Day3 extends AdventOfCode implements BinaryModel {
+    // id, x, y, width, height of each claim, in input order
+    private static final int FIELDS = 5;
 
-public class Day3 extends AdventOfCode {
     // minimum dimensions needed to accommodate all claims
-    private int maxX = 0;
-    private int maxY = 0;
-    private HashMap<Integer, Claim> claimMap;
-    private ArrayList<ArrayList<Character>> grid;
+    // (no initializers: they would run after the superclass constructor has parsed)
+    private int maxX;
+    private int maxY;
+    private IntArrayList claims;
+
+    // answers of both parts, filled in by the first sweep()
+    private boolean swept;
+    private int overlapArea;
+    private int uncontestedId;
 
     public Day3(List<String> input) {
         super(input);
         part1Description = "Area of overlapping claims (square inches): ";
         part2Description = "ID of non-overlapping claim: ";
+    }
 
-        parse();
+    public Day3(Stream<? extends CharSequence> lines) {
+        super(lines);
+        part1Description = "Area of overlapping claims (square inches): ";
+        part2Description = "ID of non-overlapping claim: ";
+    }
 
-        // check that claim IDs do not conflict with the value used to mark contested cells (i.e. Character.MAX_VALUE)
-        if (claimMap.size() >= Character.MAX_VALUE) {
-            System.err.println("Cannot process more than 65535 claims! Exiting...");
-            System.exit(1);
-        }
+    public Day3(DataInputStream model) throws IOException {
+        super(model);
+        part1Description = "Area of overlapping claims (square inches): ";
+        part2Description = "ID of non-overlapping claim: ";
     }
 
     @Override
     public Object part1() {
-        initGrid();
-        return fillGrid();
+        sweep();
+        return overlapArea;
     }
 
     @Override
     public Object part2() {
-        initGrid();
-        fillGrid();
-
-        for (Claim c : claimMap.values()) {
-            if (!c.contested) return c.id;
+        sweep();
+        if (uncontestedId < 0) {
+            System.err.println("Could not find non-overlapping claim!");
         }
-
-        System.err.println("Could not find non-overlapping claim!");
-        return -1;
+        return uncontestedId;
     }
 
     @Override
     public void parse() {
-        claimMap = new HashMap<>();
-        Pattern pattern = Pattern.compile("#(\\d+) @ (\\d+),(\\d+): (\\d+)x(\\d+)");
+        parse(input.iterator());
+    }
 
-        for (String each : input) {
-            Matcher m = pattern.matcher(each);
+    // claims are built straight from each line, so the lines need not be kept
+    @Override
+    protected void parse(Iterator<? extends CharSequence> lines) {
+        claims = new IntArrayList(FIELDS * 1024);
+        maxX = 0;
+        maxY = 0;
+        swept = false;
+        LineScanner scanner = new LineScanner();
+        int[] fields = new int[FIELDS]; // #id @ x,y: widthxheight
+
+        while (lines.hasNext()) {
+            CharSequence each = lines.next();
+            scanner.reset(each);
 
             // parse claim if properly formatted
-            if (m.matches()) {
-                int id = Integer.parseInt(m.group(1));
-                int x = Integer.parseInt(m.group(2));
-                int y = Integer.parseInt(m.group(3));
-                int width = Integer.parseInt(m.group(4));
-                int height = Integer.parseInt(m.group(5));
-
-                int boundX = x + width;
-                int boundY = y + height;
-
-                if (boundX > maxX) maxX = boundX;
-                if (boundY > maxY) maxY = boundY;
-
-                Claim c = new Claim(id, x, y, width, height);
-                claimMap.put(id, c);
+            if (each.length() > 0 && each.charAt(0) == '#' && scanner.nextInts(fields) == FIELDS && !scanner.hasNextInt()
+                    && fields[0] >= 0 && fields[1] >= 0 && fields[2] >= 0 && fields[3] >= 0 && fields[4] >= 0) {
+                addClaim(fields[0], fields[1], fields[2], fields[3], fields[4]);
             } else {
                 System.err.println("Malformed claim: " + each);
             }
         }
     }
 
-    private void initGrid() {
-        grid = new ArrayList<>();
-        Character[] emptyRow = new Character[maxX];
-        Arrays.fill(emptyRow, null);
+    private void addClaim(int id, int x, int y, int width, int height) {
+        claims.add(id);
+        claims.add(x);
+        claims.add(y);
+        claims.add(width);
+        claims.add(height);
 
-        for (int rowIdx = 0; rowIdx < maxY; rowIdx++) {
-            grid.add(new ArrayList<>(Arrays.asList(emptyRow)));
-        }
+        if (x + width > maxX) maxX = x + width;
+        if (y + height > maxY) maxY = y + height;
     }
 
-    // marks each claim on the grid, returning the number cells where claims overlap
-    private int fillGrid() {
-        int overlapCount = 0;
-
-        for (Claim c : claimMap.values()) {
-            overlapCount += markClaim(c);
+    // claims are stored as a count followed by id, x, y, width, height of each claim
+    @Override
+    public void writeModel(DataOutputStream out) throws IOException {
+        out.writeInt(claims.size() / FIELDS);
+        for (int i = 0; i < claims.size(); i++) {
+            out.writeInt(claims.get(i));
         }
-
-        return overlapCount;
     }
 
-    // marks each grid cell occupied by a given claim and updates contested status of claims
-    // returns the number of newly-contested cells
-    private int markClaim(Claim c) {
-        int overlapCount = 0;
-
-        for (int y = c.y; y < c.y + c.height; y++) {
-            ArrayList<Character> row = grid.get(y);
-
-            for (int x = c.x; x < c.x + c.width; x++) {
-                Character curr = row.get(x);
-
-                if (curr == null) {
-                    // free cell: mark with claim id
-                    row.set(x, (char) c.id);
-                } else {
-                    // occupied cell: mark c as contested
-                    c.contested = true;
+    @Override
+    public void readModel(DataInputStream in) throws IOException {
+        claims = new IntArrayList(FIELDS * 1024);
+        maxX = 0;
+        maxY = 0;
+        swept = false;
+
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            addClaim(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        }
+    }
 
-                    // if cell was previously uncontested
-                    if (curr != Character.MAX_VALUE) {
-                        claimMap.get((int) curr).contested = true;
+    /**
+     * Work out both answers in time proportional to the number of claims plus the
+     * fabric's area, however large the claims are.
+     *
+     * Each claim adds 1 to its top left corner and the corner past its bottom right,
+     * and -1 to the two other corners past its edges; the 2D prefix sum of these
+     * corners is the number of claims covering each square inch. The same pass
+     * builds a 2D prefix sum of overlapping squares, so the overlap inside any claim
+     * is four lookups.
+     */
+    private void sweep() {
+        if (swept) return;
+        int stride = maxX + 1;
+        int[] coverage = new int[stride * (maxY + 1)]; // corner marks, then claims covering (x, y)
+        int[] overlaps = new int[stride * (maxY + 1)]; // overlapping squares in [0, x) x [0, y) at (x, y)
+
+        for (int i = 0; i < claims.size(); i += FIELDS) {
+            int x = claims.get(i + 1);
+            int y = claims.get(i + 2);
+            int right = x + claims.get(i + 3);
+            int bottom = y + claims.get(i + 4);
+            coverage[y * stride + x]++;
+            coverage[y * stride + right]--;
+            coverage[bottom * stride + x]--;
+            coverage[bottom * stride + right]++;
+        }
 
-                        // contested cells marked with Character.MAX_VALUE
-                        row.set(x, Character.MAX_VALUE);
-                        overlapCount++;
-                    }
+        int area = 0;
+        for (int y = 0; y < maxY; y++) {
+            int row = y * stride;
+            int rowOverlaps = 0;
+            for (int x = 0; x < maxX; x++) {
+                int idx = row + x;
+                if (x > 0) coverage[idx] += coverage[idx - 1];
+                if (y > 0) coverage[idx] += coverage[idx - stride];
+                if (x > 0 && y > 0) coverage[idx] -= coverage[idx - stride - 1];
+
+                if (coverage[idx] > 1) {
+                    area++;
+                    rowOverlaps++;
                 }
+                overlaps[idx + stride + 1] = overlaps[idx + 1] + rowOverlaps;
             }
         }
 
-        return overlapCount;
-    }
-
-    private class Claim {
-        int id, x, y, width, height;
-        boolean contested; // true if this claim overlaps another
-
-        Claim(int id, int x, int y, int width, int height) {
-            this.id = id;
-            this.x = x;
-            this.y = y;
-            this.width = width;
-            this.height = height;
-            this.contested = false;
+        uncontestedId = -1;
+        for (int i = 0; i < claims.size() && uncontestedId < 0; i += FIELDS) {
+            int x = claims.get(i + 1);
+            int y = claims.get(i + 2);
+            int right = x + claims.get(i + 3);
+            int bottom = y + claims.get(i + 4);
+            int inside = overlaps[bottom * stride + right] - overlaps[y * stride + right]
+                    - overlaps[bottom * stride + x] + overlaps[y * stride + x];
+            if (inside == 0) uncontestedId = claims.get(i);
         }
+
+        overlapArea = area;
+        swept = true;
     }
 }
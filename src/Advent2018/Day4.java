@@ -1,9 +1,11 @@
 package Advent2018;
 
 import util.AdventOfCode;
+import util.Stub;
 
 import java.util.List;
 
+@Stub
 public class Day4 extends AdventOfCode {
     public Day4(List<String> input) {
         super(input);
@@ -1,9 +1,11 @@
 package Advent2018;
 
 import util.AdventOfCode;
+import util.Stub;
 
 import java.util.List;
 
+@Stub
 public class Day5 extends AdventOfCode {
     public Day5(List<String> input) {
         super(input);
@@ -1,10 +1,12 @@
 package Advent2018;
 
 import util.AdventOfCode;
+import util.ByteGrid;
+import util.IntGrid;
+import util.LineScanner;
+import util.collections.IntArrayList;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class Day6 extends AdventOfCode {
     private final int TOTAL_DISTANCE_LIMIT = 10000; // for part 2
@@ -14,7 +16,13 @@ public class Day6 extends AdventOfCode {
     private int minY = Integer.MAX_VALUE;
     private int maxX = 0;
     private int maxY = 0;
-    private ArrayList<ArrayList<Cell>> grid;
+    // per-cell state: owning region id, distance to that region, distance sum to all regions,
+    // and whether the cell is equally close to two or more regions
+    private static final int NO_OWNER = -1;
+    private IntGrid owners;
+    private IntGrid ownerDistances;
+    private IntGrid totalDistances;
+    private ByteGrid borders;
 
     public Day6(List<String> input) {
         super(input);
@@ -43,18 +51,19 @@ public class Day6 extends AdventOfCode {
     public void parse() {
         // parse input into global variables
         regions = new ArrayList<>();
-        Pattern pattern = Pattern.compile("(\\d+), (\\d+)");
+        LineScanner scanner = new LineScanner();
+        int[] fields = new int[2]; // x, y
 
         int currID = 0;
 
         for (String each : input) {
-            Matcher m = pattern.matcher(each);
+            scanner.reset(each);
 
             // parse region string if properly formatted
-            if (m.matches()) {
+            if (scanner.nextInts(fields) == 2 && !scanner.hasNextInt()) {
                 int id = currID++;
-                int x = Integer.parseInt(m.group(1));
-                int y = Integer.parseInt(m.group(2));
+                int x = fields[0];
+                int y = fields[1];
 
                 if (x < minX) minX = x;
                 if (x > maxX) maxX = x;
@@ -70,127 +79,105 @@ public class Day6 extends AdventOfCode {
     }
 
     private void initGrid() {
-        grid = new ArrayList<>();
+        int width = maxX - minX + 1;
+        int height = maxY - minY + 1;
 
-        // initialize grid cells
-        for (int rowIdx = 0; rowIdx <= maxY - minY; rowIdx++) {
-            Cell[] newRow = new Cell[maxX - minX + 1];
-
-            for (int colIdx = 0; colIdx <= maxX - minX; colIdx++) {
-                newRow[colIdx] = new Cell(colIdx, rowIdx);
-            }
-
-            grid.add(new ArrayList<>(Arrays.asList(newRow)));
-        }
+        // grids are addressed by actual coordinates
+        owners = new IntGrid(minX, minY, width, height, NO_OWNER);
+        ownerDistances = new IntGrid(minX, minY, width, height, Integer.MAX_VALUE);
+        totalDistances = new IntGrid(minX, minY, width, height, -1);
+        borders = new ByteGrid(minX, minY, width, height, (byte) 0);
 
         // mark region centers
         for (Region r : regions) {
-            Cell c = grid.get(r.y - minY).get(r.x - minX);
-            c.owner = r;
-            c.ownerDistance = 0;
-            c.border = false;
+            owners.set(r.x, r.y, r.id);
+            ownerDistances.set(r.x, r.y, 0);
+            borders.set(r.x, r.y, (byte) 0);
         }
     }
 
     // Mark cells belonging to each region by performing a BFS from each region center simultaneously
     private void growRegions() {
-        Queue<Cell> growthQueue = new LinkedList<>();
+        // queue of x, y pairs
+        IntArrayList growthQueue = new IntArrayList();
         for (Region r : regions) {
-            Cell c = grid.get(r.y - minY).get(r.x - minX);
-            growthQueue.add(c);
+            growthQueue.add(r.x);
+            growthQueue.add(r.y);
         }
 
-        while (growthQueue.peek() != null) {
-            growStep(growthQueue);
+        for (int head = 0; head < growthQueue.size(); head += 2) {
+            growStep(growthQueue.get(head), growthQueue.get(head + 1), growthQueue);
         }
     }
 
-    // attempts to grow cell at the head of the queue
-    private void growStep(Queue<Cell> growthQueue) {
-        Cell c = growthQueue.remove();
-        Region owner = c.owner;
+    // attempts to grow the cell taken from the head of the queue
+    private void growStep(int x, int y, IntArrayList growthQueue) {
+        Region owner = regions.get(owners.get(x, y));
 
         // try to grow to adjacent cells
-        Cell left = tryGrow(c.x - 1, c.y, owner);
-        Cell right = tryGrow(c.x + 1, c.y, owner);
-        Cell up = tryGrow(c.x, c.y - 1, owner);
-        Cell down = tryGrow(c.x, c.y + 1, owner);
-
-        if (left != null) growthQueue.add(left);
-        if (right != null) growthQueue.add(right);
-        if (up != null) growthQueue.add(up);
-        if (down != null) growthQueue.add(down);
+        tryGrow(x - 1, y, owner, growthQueue);
+        tryGrow(x + 1, y, owner, growthQueue);
+        tryGrow(x, y - 1, owner, growthQueue);
+        tryGrow(x, y + 1, owner, growthQueue);
     }
 
     // if possible, claims the cell at the given coordinates for the given region
-    // if cell is claimed, return it
-    private Cell tryGrow(int targetX, int targetY, Region owner) {
-        int actualX = targetX + minX;
-        int actualY = targetY + minY;
-
-        if (!cellInbounds(targetX, targetY)) {
-            System.err.println("Tried to grow region out of bounds! id: " + owner.id + ", actual: (" + targetX + ", " + targetY + "), grid: (" + actualX + ", " + actualY + ")");
-            return null;
+    // if cell is claimed, add it to the queue
+    private void tryGrow(int targetX, int targetY, Region owner, IntArrayList growthQueue) {
+        if (!owners.inBounds(targetX, targetY)) {
+            System.err.println("Tried to grow region out of bounds! id: " + owner.id + ", actual: (" + targetX + ", " + targetY + "), grid: (" + (targetX - minX) + ", " + (targetY - minY) + ")");
+            return;
         }
 
-        Cell targetCell = grid.get(targetY).get(targetX);
-        int distance = Math.abs(actualX - owner.x) + Math.abs(actualY - owner.y);
+        int distance = Math.abs(targetX - owner.x) + Math.abs(targetY - owner.y);
+        int targetOwner = owners.get(targetX, targetY);
 
-        if (targetCell.owner == null) {
+        if (targetOwner == NO_OWNER) {
             // free cell: claim it
-            targetCell.owner = owner;
-            targetCell.ownerDistance = distance;
+            owners.set(targetX, targetY, owner.id);
+            ownerDistances.set(targetX, targetY, distance);
             owner.area++;
-            return targetCell;
-        } else if (targetCell.owner.id != owner.id) {
+            growthQueue.add(targetX);
+            growthQueue.add(targetY);
+        } else if (targetOwner != owner.id) {
             // cell belongs to other region: claim iff our region is closer to the cell
-            if (targetCell.ownerDistance > distance) {
-                targetCell.owner.area--;
-                targetCell.owner = owner;
-                targetCell.ownerDistance = distance;
+            int targetDistance = ownerDistances.get(targetX, targetY);
+            if (targetDistance > distance) {
+                regions.get(targetOwner).area--;
+                owners.set(targetX, targetY, owner.id);
+                ownerDistances.set(targetX, targetY, distance);
                 owner.area++;
-                return targetCell;
-            } else if (targetCell.ownerDistance == distance) {
+                growthQueue.add(targetX);
+                growthQueue.add(targetY);
+            } else if (targetDistance == distance) {
                 // mark cell as a border between regions
-                if (!targetCell.border) {
-                    targetCell.owner.area--;
-                    targetCell.border = true;
+                if (borders.get(targetX, targetY) == 0) {
+                    regions.get(targetOwner).area--;
+                    borders.set(targetX, targetY, (byte) 1);
                 }
             }
         }
-
-        return null;
     }
 
     private void markFiniteRegions() {
-        ArrayList<Cell> firstRow = grid.get(0);
-        ArrayList<Cell> lastRow = grid.get(maxY - minY);
-
         // first and last rows
-        for (int colIdx = 0; colIdx <= maxX - minX; colIdx++) {
-            Cell cFirst = firstRow.get(colIdx);
-            Cell cLast = lastRow.get(colIdx);
-
-            setCellRegionFiniteness(cFirst);
-            setCellRegionFiniteness(cLast);
+        for (int x = minX; x <= maxX; x++) {
+            setCellRegionFiniteness(x, minY);
+            setCellRegionFiniteness(x, maxY);
         }
 
         // first and last columns
-        for (int rowIdx = 1; rowIdx < maxY - minY; rowIdx++) {
-            ArrayList<Cell> row = grid.get(rowIdx);
-
-            Cell cLeft = row.get(0);
-            Cell cRight = row.get(maxX - minX);
-
-            setCellRegionFiniteness(cLeft);
-            setCellRegionFiniteness(cRight);
+        for (int y = minY + 1; y < maxY; y++) {
+            setCellRegionFiniteness(minX, y);
+            setCellRegionFiniteness(maxX, y);
         }
 
     }
 
-    private void setCellRegionFiniteness(Cell cFirst) {
-        if (cFirst.owner != null) {
-            cFirst.owner.finiteArea = false;
+    private void setCellRegionFiniteness(int x, int y) {
+        int owner = owners.get(x, y);
+        if (owner != NO_OWNER) {
+            regions.get(owner).finiteArea = false;
         }
     }
 
@@ -214,12 +201,9 @@ public class Day6 extends AdventOfCode {
     private int calcGridTotalDistances() {
         int numCells = 0;
 
-        for (int rowIdx = 0; rowIdx <= maxY - minY; rowIdx++) {
-            ArrayList<Cell> row = grid.get(rowIdx);
-
-            for (int colIdx = 0; colIdx <= maxX - minX; colIdx++) {
-                Cell c = row.get(colIdx);
-                if (calcCellTotalDistance(c)) numCells++;
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                if (calcCellTotalDistance(x, y)) numCells++;
             }
         }
 
@@ -227,66 +211,54 @@ public class Day6 extends AdventOfCode {
     }
 
     // returns true iff total distance for cell is under limit
-    private boolean calcCellTotalDistance(Cell c) {
-        int actualX = c.x + minX;
-        int actualY = c.y + minY;
-
-        c.totalDistance = 0;
+    private boolean calcCellTotalDistance(int x, int y) {
+        int totalDistance = 0;
 
         for (Region r : regions) {
-            int distance = Math.abs(actualX - r.x) + Math.abs(actualY - r.y);
-            c.totalDistance += distance;
+            int distance = Math.abs(x - r.x) + Math.abs(y - r.y);
+            totalDistance += distance;
         }
 
-        return c.totalDistance < TOTAL_DISTANCE_LIMIT;
-    }
-
-    private boolean cellInbounds(int x, int y) {
-        if (y < 0) return false;
-        if (y >= grid.size()) return false;
-        if (x < 0) return false;
-        return x < grid.get(y).size();
+        totalDistances.set(x, y, totalDistance);
+        return totalDistance < TOTAL_DISTANCE_LIMIT;
     }
 
     private void printGrid(boolean part1) {
-        System.out.println("minX: " + minX);
-        System.out.println("maxX: " + maxX);
-        System.out.println("minY: " + minY);
-        System.out.println("maxY: " + maxY);
-        System.out.flush();
-
-        for (int rowIdx = 0; rowIdx <= maxY - minY; rowIdx++) {
-            ArrayList<Cell> row = grid.get(rowIdx);
-
-            for (int colIdx = 0; colIdx <= maxX - minX; colIdx++) {
-                Cell c = row.get(colIdx);
-
-                if (part1) printCell1(c);
-                else printCell2(c);
-
-                System.out.print(" ");
+        out.println("minX: " + minX);
+        out.println("maxX: " + maxX);
+        out.println("minY: " + minY);
+        out.println("maxY: " + maxY);
+        out.flush();
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                if (part1) printCell1(x, y);
+                else printCell2(x, y);
+
+                out.print(" ");
             }
 
-            System.out.print('\n');
+            out.print('\n');
         }
     }
 
     // for part 1
-    private void printCell1(Cell c) {
-        if (c.owner == null) System.out.print('.');
-        else if (c.border) System.out.print('+');
-        else if (c.ownerDistance == 0) System.out.print('@'); // region center
+    private void printCell1(int x, int y) {
+        int owner = owners.get(x, y);
+        if (owner == NO_OWNER) out.print('.');
+        else if (borders.get(x, y) != 0) out.print('+');
+        else if (ownerDistances.get(x, y) == 0) out.print('@'); // region center
         else {
-            System.out.print((char) (c.owner.id + 65));
+            out.print((char) (owner + 65));
         }
     }
 
     // for part 2
-    private void printCell2(Cell c) {
-        if (c.totalDistance >= TOTAL_DISTANCE_LIMIT) System.out.print('.');
-        else if (c.ownerDistance == 0) System.out.print((char) (c.owner.id + 65)); // region center
+    private void printCell2(int x, int y) {
+        if (totalDistances.get(x, y) >= TOTAL_DISTANCE_LIMIT) out.print('.');
+        else if (ownerDistances.get(x, y) == 0) out.print((char) (owners.get(x, y) + 65)); // region center
         else {
-            System.out.print('#');
+            out.print('#');
         }
     }
 
@@ -302,30 +274,4 @@ public class Day6 extends AdventOfCode {
             this.finiteArea = true;
         }
     }
-
-    private class Cell {
-        final int x, y;
-        Region owner;
-        int ownerDistance;
-        int totalDistance;
-        boolean border; // true iff cell is equally close to two or more regions
-
-        Cell(Region owner, int x, int y) {
-            this.owner = owner;
-            this.x = x;
-            this.y = y;
-            this.ownerDistance = Integer.MAX_VALUE;
-            this.totalDistance = -1;
-            this.border = false;
-        }
-
-        Cell(int x, int y) {
-            this.owner = null;
-            this.x = x;
-            this.y = y;
-            this.ownerDistance = Integer.MAX_VALUE;
-            this.totalDistance = -1;
-            this.border = false;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -1,16 +1,16 @@
 package Advent2018;
 
 import util.AdventOfCode;
+import util.LineScanner;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class Day7 extends AdventOfCode {
     private final int NUM_WORKERS = 5;
     private final int BASE_STEP_DURATION = 60;
     // global variables go here
-    private HashMap<Character, Step> stepMap;
+    private Step[] steps; // indexed by step id, i.e. label - 'A'
+    private int numSteps;
     private boolean[][] adjMatrix;
     private StringBuilder stepSequence;
 
@@ -36,7 +36,7 @@ public class Day7 extends AdventOfCode {
         // process queue
         while (stepQueue.peek() != null) {
             int i = stepQueue.remove();
-            Step s = stepMap.get((char) (i + 65));
+            Step s = steps[i];
             if (s.done) continue;
 
             s.done = true;
@@ -80,7 +80,7 @@ public class Day7 extends AdventOfCode {
                 if ((w.job != null) || (stepQueue.peek() == null)) continue;
 
                 int i = stepQueue.remove();
-                Step s = stepMap.get((char) (i + 65));
+                Step s = steps[i];
                 if (s.done || s.active) continue;
 
                 w.job = s;
@@ -106,30 +106,31 @@ public class Day7 extends AdventOfCode {
     @Override
     public void parse() {
         // parse input into global variables
-        stepMap = new HashMap<>();
+        steps = new Step[26];
+        numSteps = 0;
 
-        Pattern pattern = Pattern.compile("Step (\\w+) must be finished before step (\\w+) can begin.");
+        LineScanner scanner = new LineScanner();
 
         for (String each : input) {
-            Matcher m = pattern.matcher(each);
-
-            // parse string if properly formatted
-            if (m.matches()) {
-                Character c1 = m.group(1).charAt(0);
-                Character c2 = m.group(2).charAt(0);
+            scanner.reset(each);
+
+            // parse string if properly formatted: "Step C must be finished before step A can begin."
+            if (each.startsWith("Step ") && scanner.hasNextCharToken()) {
+                char c1 = scanner.nextCharToken();
+                if (!scanner.hasNextCharToken()) {
+                    System.err.println("Malformed region string: " + each);
+                    continue;
+                }
+                char c2 = scanner.nextCharToken();
                 Step s1, s2;
 
-                if (stepMap.containsKey(c1)) s1 = stepMap.get(c1);
-                else {
-                    s1 = new Step(c1 - 65, c1);
-                    stepMap.put(c1, s1);
+                if (c1 < 'A' || c1 > 'Z' || c2 < 'A' || c2 > 'Z') {
+                    System.err.println("Malformed region string: " + each);
+                    continue;
                 }
 
-                if (stepMap.containsKey(c2)) s2 = stepMap.get(c2);
-                else {
-                    s2 = new Step(c2 - 65, c2);
-                    stepMap.put(c2, s2);
-                }
+                s1 = getOrAddStep(c1);
+                s2 = getOrAddStep(c2);
 
                 s1.post.add(s2);
                 s2.pre.add(s1);
@@ -141,10 +142,20 @@ public class Day7 extends AdventOfCode {
         initAdjMatrix();
     }
 
+    private Step getOrAddStep(char label) {
+        int id = label - 65;
+        if (steps[id] == null) {
+            steps[id] = new Step(id, label);
+            numSteps++;
+        }
+        return steps[id];
+    }
+
     private void initAdjMatrix() {
-        adjMatrix = new boolean[stepMap.size()][stepMap.size()];
+        adjMatrix = new boolean[numSteps][numSteps];
 
-        for (Step s : stepMap.values()) {
+        for (Step s : steps) {
+            if (s == null) continue;
             for (Step pre : s.pre) {
                 adjMatrix[pre.id][s.id] = true;
             }
@@ -156,12 +167,12 @@ public class Day7 extends AdventOfCode {
 
     // returns true iff a given step is unfinished and its prereqs are satisfied
     private boolean checkStep(int i) {
-        Step s = stepMap.get((char) (i + 65));
+        Step s = steps[i];
         if (s.done) return false;
 
         for (int j = 0; j < adjMatrix.length; j++) {
             if (adjMatrix[j][i]) {
-                Step sPre = stepMap.get((char) (j + 65));
+                Step sPre = steps[j];
 
                 if (!sPre.done) {
                     return false;
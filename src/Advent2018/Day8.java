@@ -1,9 +1,11 @@
 package Advent2018;
 
 import util.AdventOfCode;
+import util.Stub;
 
 import java.util.List;
 
+@Stub
 public class Day8 extends AdventOfCode {
     // global variables go here
 
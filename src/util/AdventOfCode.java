@@ -1,25 +1,135 @@
 package util;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public abstract class AdventOfCode {
 
     protected List<String> input;
 
+    // where the day prints anything besides its answers, i.e. debug grids
+    protected PrintStream out = System.out;
+
+    private final Map<Phase, Measurement> measurements = new EnumMap<>(Phase.class);
+
     public AdventOfCode(List<String> input) {
         this.input = input;
+        Measurement.Probe probe = Measurement.start();
         parse();
+        record(probe.stop(Phase.PARSE));
+    }
+
+    /**
+     * Build the day from what BinaryModel.writeModel() wrote, without any text
+     * input (input stays null). Only for days that implement BinaryModel.
+     */
+    public AdventOfCode(DataInputStream model) throws IOException {
+        if (!(this instanceof BinaryModel)) {
+            throw new IllegalStateException(getClass().getName() + " has no binary model");
+        }
+        Measurement.Probe probe = Measurement.start();
+        ((BinaryModel) this).readModel(model);
+        record(probe.stop(Phase.PARSE));
+    }
+
+    /**
+     * Build the day from lines as they are read, without first collecting them
+     * into a List. The stream is closed once parsing is done. The binary model
+     * cache is not used, since there is no complete input to hash.
+     */
+    public AdventOfCode(Stream<? extends CharSequence> lines) {
+        Measurement.Probe probe = Measurement.start();
+        try (Stream<? extends CharSequence> s = lines) {
+            parse(s.iterator());
+        }
+        record(probe.stop(Phase.PARSE));
     }
 
     public abstract Object part1();
     public abstract Object part2();
     public abstract void parse();
 
+    /**
+     * Parse lines one at a time. Days that can build their model line by line
+     * override this and leave input null; by default the lines are collected
+     * into input and parse() is called.
+     */
+    protected void parse(Iterator<? extends CharSequence> lines) {
+        List<String> list = new ArrayList<>();
+        while (lines.hasNext()) {
+            list.add(lines.next().toString());
+        }
+        input = list;
+        parse();
+    }
+
+    /**
+     * Whether part2() gives the right answer on a freshly parsed instance that
+     * never ran part1(). Days that reuse state computed by part1() must
+     * override this to return false so their parts are run in sequence.
+     */
+    public boolean partsIndependent() {
+        return true;
+    }
+
     public String part1Description;
     public String part2Description;
 
+    /**
+     * part1(), recording its wall time, CPU time and allocations
+     */
+    public Object solvePart1() {
+        Measurement.Probe probe = Measurement.start();
+        Object result = part1();
+        record(probe.stop(Phase.PART1));
+        return result;
+    }
+
+    /**
+     * part2(), recording its wall time, CPU time and allocations
+     */
+    public Object solvePart2() {
+        Measurement.Probe probe = Measurement.start();
+        Object result = part2();
+        record(probe.stop(Phase.PART2));
+        return result;
+    }
+
+    private synchronized void record(Measurement m) {
+        measurements.put(m.phase, m);
+    }
+
+    /**
+     * @return latest measurement of the given phase, or null if it has not run
+     */
+    public synchronized Measurement getMeasurement(Phase phase) {
+        return measurements.get(phase);
+    }
+
     public void run() {
-        System.out.println(part1Description + part1().toString());
-        System.out.println(part2Description + part2().toString());
+        run(System.out);
+    }
+
+    /**
+     * Send whatever the day prints itself to the given stream, so output of
+     * days run side by side does not interleave
+     */
+    public void setOut(PrintStream out) {
+        this.out = out;
+    }
+
+    public void run(PrintStream out) {
+        setOut(out);
+        Object part1 = solvePart1();
+        out.println(part1Description + part1.toString() + "    [" + getMeasurement(Phase.PART1) + "]");
+        Object part2 = solvePart2();
+        out.println(part2Description + part2.toString() + "    [" + getMeasurement(Phase.PART2) + "]");
     }
-}
\ No newline at end of file
+}
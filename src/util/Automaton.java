@@ -0,0 +1,240 @@
+package util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Langton's-ant style automaton: a carrier walks a ByteGrid, and on every step
+ * turns according to the state of its node, moves that node to its next state
+ * and steps forward. The rules are given as tables indexed by node state, so a
+ * step is a few array loads and adds no matter how many states there are.
+ *
+ * Directions are 0 = up, 1 = right, 2 = down, 3 = left.
+ *
+ * The whole state, rules included, can be saved with save() and restored with
+ * load(), so very long runs can be stopped and resumed.
+ */
+public class Automaton {
+
+    /**
+     * Called by runUntil() after every chunk of steps
+     */
+    public interface Progress {
+        void report(Automaton automaton, double stepsPerSecond);
+    }
+
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+
+    // rules as given, kept for save()
+    private final int[] turns;
+    private final int countedState;
+
+    // new direction for (state << 2 | direction)
+    private final int[] turnTable;
+    private final byte[] nextState;
+    // 1 for states whose next state is the counted one, else 0
+    private final int[] counted;
+
+    private final ByteGrid grid;
+    private int x;
+    private int y;
+    private int dir;
+
+    // over the automaton's whole life, including runs before a save()
+    private long totalSteps;
+    private long totalCounted;
+
+    /**
+     * @param nextState state each node state changes to when the carrier visits it
+     * @param turns quarter turns clockwise made on each node state (0 straight, 1 right, 2 back, 3 left)
+     * @param countedState steps that move a node into this state are counted by run()
+     * @param grid initial node states, grown as the carrier walks off it
+     * @param x starting column of the carrier
+     * @param y starting row of the carrier
+     */
+    public Automaton(byte[] nextState, int[] turns, int countedState, ByteGrid grid, int x, int y) {
+        if (nextState.length != turns.length) throw new IllegalArgumentException("Need one turn per state.");
+
+        this.nextState = nextState.clone();
+        this.turns = turns.clone();
+        this.countedState = countedState;
+        this.turnTable = new int[nextState.length * 4];
+        this.counted = new int[nextState.length];
+        for (int state = 0; state < nextState.length; state++) {
+            if (nextState[state] < 0 || nextState[state] >= nextState.length) {
+                throw new IllegalArgumentException("Unknown next state " + nextState[state] + " for state " + state);
+            }
+            for (int d = 0; d < 4; d++) {
+                turnTable[state << 2 | d] = (d + turns[state]) & 3;
+            }
+            counted[state] = nextState[state] == countedState ? 1 : 0;
+        }
+
+        this.grid = grid;
+        this.x = x;
+        this.y = y;
+        this.dir = 0;
+        grid.ensure(x, y);
+    }
+
+    /**
+     * Advance the carrier by the given number of steps
+     * @return number of steps that moved a node into the counted state
+     */
+    public long run(long steps) {
+        int[] turnTable = this.turnTable;
+        byte[] nextState = this.nextState;
+        int[] counted = this.counted;
+
+        long count = 0;
+        int x = this.x;
+        int y = this.y;
+        int dir = this.dir;
+
+        byte[] cells = grid.raw();
+        int idx = grid.index(x, y);
+        int minX = grid.minX(), maxX = grid.maxX(), minY = grid.minY(), maxY = grid.maxY();
+        int[] step = {-grid.width(), 1, grid.width(), -1};
+
+        for (long i = 0; i < steps; i++) {
+            int state = cells[idx];
+            dir = turnTable[state << 2 | dir];
+            cells[idx] = nextState[state];
+            count += counted[state];
+
+            x += DX[dir];
+            y += DY[dir];
+            idx += step[dir];
+
+            if (x < minX || x >= maxX || y < minY || y >= maxY) {
+                grid.ensure(x, y);
+                cells = grid.raw();
+                idx = grid.index(x, y);
+                minX = grid.minX();
+                maxX = grid.maxX();
+                minY = grid.minY();
+                maxY = grid.maxY();
+                step[0] = -grid.width();
+                step[2] = grid.width();
+            }
+        }
+
+        this.x = x;
+        this.y = y;
+        this.dir = dir;
+        totalSteps += steps;
+        totalCounted += count;
+        return count;
+    }
+
+    /**
+     * Run until totalSteps() reaches target, calling progress (if not null)
+     * after every interval steps and at the end
+     * @param interval steps between reports, or 0 to run in one go
+     * @return number of counted steps during this call
+     */
+    public long runUntil(long target, long interval, Progress progress) {
+        long countedBefore = totalCounted;
+        while (totalSteps < target) {
+            long chunk = target - totalSteps;
+            if (interval > 0 && interval < chunk) chunk = interval;
+
+            long start = System.nanoTime();
+            run(chunk);
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+            if (progress != null) progress.report(this, chunk / seconds);
+        }
+        return totalCounted - countedBefore;
+    }
+
+    public long totalSteps() {
+        return totalSteps;
+    }
+
+    public long totalCounted() {
+        return totalCounted;
+    }
+
+    /**
+     * @return true iff both automata follow the same rules
+     */
+    public boolean sameRules(byte[] nextState, int[] turns, int countedState) {
+        return Arrays.equals(this.nextState, nextState) && Arrays.equals(this.turns, turns)
+                && this.countedState == countedState;
+    }
+
+    /**
+     * Write rules, carrier, counters and grid
+     */
+    public void save(DataOutputStream out) throws IOException {
+        out.writeInt(nextState.length);
+        out.write(nextState);
+        for (int turn : turns) out.writeInt(turn);
+        out.writeInt(countedState);
+
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(dir);
+        out.writeLong(totalSteps);
+        out.writeLong(totalCounted);
+
+        out.writeInt(grid.minX());
+        out.writeInt(grid.minY());
+        out.writeInt(grid.width());
+        out.writeInt(grid.height());
+        out.writeByte(grid.fill());
+        out.write(grid.raw());
+    }
+
+    /**
+     * Restore an automaton written by save()
+     */
+    public static Automaton load(DataInputStream in) throws IOException {
+        int states = in.readInt();
+        if (states <= 0 || states > 256) throw new IOException("Bad state count " + states);
+        byte[] nextState = new byte[states];
+        in.readFully(nextState);
+        int[] turns = new int[states];
+        for (int i = 0; i < states; i++) turns[i] = in.readInt();
+        int countedState = in.readInt();
+
+        int x = in.readInt();
+        int y = in.readInt();
+        int dir = in.readInt();
+        long totalSteps = in.readLong();
+        long totalCounted = in.readLong();
+
+        int minX = in.readInt();
+        int minY = in.readInt();
+        int width = in.readInt();
+        int height = in.readInt();
+        byte fill = in.readByte();
+        ByteGrid grid = new ByteGrid(minX, minY, width, height, fill);
+        in.readFully(grid.raw());
+
+        Automaton automaton = new Automaton(nextState, turns, countedState, grid, x, y);
+        automaton.dir = dir & 3;
+        automaton.totalSteps = totalSteps;
+        automaton.totalCounted = totalCounted;
+        return automaton;
+    }
+
+    public int x() {
+        return x;
+    }
+
+    public int y() {
+        return y;
+    }
+
+    public int direction() {
+        return dir;
+    }
+
+    public ByteGrid grid() {
+        return grid;
+    }
+}
@@ -0,0 +1,31 @@
+package util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Implemented by days whose parsed input can be saved to a binary sidecar file
+ * next to the cached text input, so later runs can skip parse(). Such days
+ * also need a public constructor taking a DataInputStream that passes it to
+ * AdventOfCode(DataInputStream). See ModelCache.
+ */
+public interface BinaryModel {
+
+    /**
+     * Write everything parse() builds
+     */
+    void writeModel(DataOutputStream out) throws IOException;
+
+    /**
+     * Rebuild the state parse() would have built from what writeModel() wrote
+     */
+    void readModel(DataInputStream in) throws IOException;
+
+    /**
+     * Bump whenever the layout written by writeModel() changes, so old sidecar files are ignored
+     */
+    default int modelVersion() {
+        return 1;
+    }
+}
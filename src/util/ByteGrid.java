@@ -0,0 +1,62 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Grid of byte cells, see Grid
+ */
+public class ByteGrid extends Grid {
+
+    private final byte fill;
+    private byte[] cells;
+
+    public ByteGrid(int width, int height) {
+        this(0, 0, width, height, (byte) 0);
+    }
+
+    /**
+     * @param fill value of every cell before it is set, including cells added by ensure()
+     */
+    public ByteGrid(int minX, int minY, int width, int height, byte fill) {
+        super(minX, minY, width, height);
+        this.fill = fill;
+        this.cells = (byte[]) newArray(width * height);
+    }
+
+    public byte get(int x, int y) {
+        return cells[index(x, y)];
+    }
+
+    public void set(int x, int y, byte value) {
+        cells[index(x, y)] = value;
+    }
+
+    public byte fill() {
+        return fill;
+    }
+
+    /**
+     * The backing array, for loops that walk index() values directly.
+     * Replaced whenever ensure() grows the grid.
+     */
+    public byte[] raw() {
+        return cells;
+    }
+
+    @Override
+    protected Object array() {
+        return cells;
+    }
+
+    @Override
+    protected void setArray(Object array) {
+        cells = (byte[]) array;
+    }
+
+    @Override
+    protected Object newArray(int size) {
+        byte[] array = new byte[size];
+        if (fill != 0) Arrays.fill(array, fill);
+        return array;
+    }
+}
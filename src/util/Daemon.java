@@ -0,0 +1,121 @@
+package util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Long-lived runner that keeps day classes loaded, JIT-compiled code warm and
+ * inputs in memory between requests, so repeated runs skip JVM startup.
+ *
+ * Reads commands from stdin, or from connections to a local port when started
+ * with "--port N". Commands, one per line:
+ *   run YEAR DAY
+ *   runall YEAR UPTODAY
+ *   list YEAR
+ *   quit
+ */
+public class Daemon {
+
+    // cached puzzle input per year * 100 + day
+    private final Map<Integer, List<String>> inputs = new ConcurrentHashMap<>();
+
+    /**
+     * Execute one command, writing its output to out
+     * @return false iff the command asks the daemon to stop
+     */
+    boolean handle(String command, PrintStream out) {
+        String[] args = command.trim().split("\\s+");
+        long start = System.nanoTime();
+        try {
+            switch (args[0].toLowerCase()) {
+                case "":
+                    return true;
+                case "quit":
+                case "exit":
+                    return false;
+                case "run":
+                    checkArgs(args);
+                    run(Integer.parseInt(args[1]), Integer.parseInt(args[2]), out);
+                    break;
+                case "list":
+                    if (args.length != 2) throw new IllegalArgumentException("Usage: list YEAR");
+                    out.println("Implemented: " + DayRegistry.implemented(Integer.parseInt(args[1])));
+                    out.println("Stubs: " + DayRegistry.stubs(Integer.parseInt(args[1])));
+                    break;
+                case "runall":
+                    checkArgs(args);
+                    for (int day = 1; day <= Integer.parseInt(args[2]); day++) {
+                        run(Integer.parseInt(args[1]), day, out);
+                    }
+                    break;
+                default:
+                    out.println("ERROR: unknown command \"" + args[0] + "\", expected run, runall, list or quit");
+                    return true;
+            }
+            out.printf("Done in %.3f ms%n", (System.nanoTime() - start) / 1e6);
+        } catch (RuntimeException e) {
+            out.println("ERROR: " + e);
+        }
+        return true;
+    }
+
+    private static void checkArgs(String[] args) {
+        if (args.length != 3) throw new IllegalArgumentException("Usage: " + args[0] + " YEAR DAY");
+    }
+
+    // fresh instance every time, since parts may change the parsed state
+    private void run(int year, int day, PrintStream out) {
+        List<String> input = inputs.computeIfAbsent(year * 100 + day,
+                k -> Collections.unmodifiableList(FileIO.getAOCInputForDay(year, day, FileIO.SESSION_ID)));
+        AdventOfCode challenge = DayLoader.getClassForDay(year, day, input);
+        if (challenge == null) throw new RuntimeException("Unable to load class/input");
+        Runner.run(year, day, challenge, out);
+    }
+
+    private void serve(BufferedReader in, PrintStream out) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line, out)) return;
+            out.flush();
+        }
+    }
+
+    // one thread per client; quit closes only that client's connection
+    private void listen(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println("Listening on " + server.getLocalSocketAddress());
+            while (true) {
+                Socket client = server.accept();
+                Thread worker = new Thread(() -> {
+                    try (Socket s = client;
+                         BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream()));
+                         PrintStream out = new PrintStream(s.getOutputStream(), true)) {
+                        serve(in, out);
+                    } catch (IOException ioe) {
+                        ioe.printStackTrace();
+                    }
+                });
+                worker.setDaemon(true);
+                worker.start();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Daemon daemon = new Daemon();
+        if (args.length == 2 && args[0].equals("--port")) {
+            daemon.listen(Integer.parseInt(args[1]));
+        } else {
+            daemon.serve(new BufferedReader(new InputStreamReader(System.in)), System.out);
+        }
+    }
+}
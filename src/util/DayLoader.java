@@ -1,28 +1,84 @@
 package util;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 public class DayLoader {
 
     private DayLoader() {}
 
+    /**
+     * Instantiate the solution for the given day from its cached puzzle input,
+     * or from the input's binary model if ModelCache is on and has one
+     * @return parsed solution, or null if it could not be created
+     */
     public static AdventOfCode getClassForDay(int year, int day) {
-        if (year < 2015 || year > 2018 || day < 1 || day > 25) {
-            throw new IllegalArgumentException("Invalid date for Advent of Code.");
+        checkDate(year, day);
+        if (!ModelCache.isEnabled() || !DayRegistry.supportsModel(year, day)) {
+            return getClassForDay(year, day, FileIO.getAOCInputForDay(year, day, FileIO.SESSION_ID));
         }
+
+        Path text = Paths.get(FileIO.getAOCInputFilename(year, day));
+        AdventOfCode cached = ModelCache.load(year, day, text);
+        if (cached != null) return cached;
+
+        ModelCache.Stamp stamp = ModelCache.Stamp.of(text);
+        AdventOfCode challenge = getClassForDay(year, day, FileIO.getAOCInputForDay(year, day, FileIO.SESSION_ID));
+        if (challenge != null) ModelCache.store((BinaryModel) challenge, text, stamp);
+        return challenge;
+    }
+
+    /**
+     * Instantiate the solution for the given day using the supplied input
+     * instead of the cached puzzle input, i.e. for benchmarks with scaled inputs
+     * @param year integer year
+     * @param day 1 - 25
+     * @param input lines of puzzle input
+     * @return parsed solution, or null if it could not be created
+     */
+    public static AdventOfCode getClassForDay(int year, int day, List<String> input) {
+        checkDate(year, day);
         try {
-            String name = "Advent" + year + ".Day" + day;
-            Constructor constructor = Class.forName(name).getConstructor(List.class);
-            return (AdventOfCode)constructor.newInstance(FileIO.getAOCInputForDay(year, day, FileIO.SESSION_ID));
+            return DayRegistry.create(year, day, input);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-        } catch (ClassNotFoundException | InstantiationException |
-                IllegalAccessException | InvocationTargetException |
-                NoSuchMethodException e) {
+    /**
+     * Instantiate the solution for the given day from its memory-mapped input
+     * lines if it has a Stream constructor, otherwise the same as getClassForDay(year, day).
+     * The lines are views onto the mapped file, so no String is made for them.
+     * @param year integer year
+     * @param day 1 - 25
+     * @return parsed solution, or null if it could not be created
+     */
+    public static AdventOfCode getStreamingClassForDay(int year, int day) {
+        checkDate(year, day);
+        if (!DayRegistry.supportsStreaming(year, day)) {
+            return getClassForDay(year, day);
+        }
+        try {
+            return DayRegistry.create(year, day, FileIO.mapAOCInputForDay(year, day, FileIO.SESSION_ID).stream());
+        } catch (RuntimeException e) {
             e.printStackTrace();
             return null;
         }
+    }
 
+    /**
+     * @return true iff a solution class exists for the given day
+     */
+    public static boolean hasClassForDay(int year, int day) {
+        checkDate(year, day);
+        return DayRegistry.has(year, day);
+    }
+
+    private static void checkDate(int year, int day) {
+        if (year < 2015 || day < 1 || day > 25) {
+            throw new IllegalArgumentException("Invalid date for Advent of Code.");
+        }
     }
-}
\ No newline at end of file
+}
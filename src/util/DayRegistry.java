@@ -0,0 +1,214 @@
+package util;
+
+import java.io.DataInputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Constructors of every day, looked up once per year and kept as MethodHandles
+ * so creating a day costs about as much as calling its constructor directly.
+ * Days are found by class name (AdventYYYY.DayN), so any year works.
+ */
+public class DayRegistry {
+
+    private static final MethodType FROM_LIST = MethodType.methodType(AdventOfCode.class, List.class);
+    private static final MethodType FROM_STREAM = MethodType.methodType(AdventOfCode.class, Stream.class);
+    private static final MethodType FROM_MODEL = MethodType.methodType(AdventOfCode.class, DataInputStream.class);
+
+    // keyed by year * 100 + day
+    private static final Map<Integer, Entry> DAYS = new ConcurrentHashMap<>();
+    private static final Map<Integer, Boolean> SCANNED_YEARS = new ConcurrentHashMap<>();
+
+    private DayRegistry() {}
+
+    private static class Entry {
+        final Class<? extends AdventOfCode> type;
+        final MethodHandle fromList;
+        final MethodHandle fromStream; // null if the day cannot parse a stream
+        final MethodHandle fromModel;  // null if the day has no BinaryModel constructor
+
+        Entry(Class<? extends AdventOfCode> type, MethodHandle fromList, MethodHandle fromStream,
+              MethodHandle fromModel) {
+            this.type = type;
+            this.fromList = fromList;
+            this.fromStream = fromStream;
+            this.fromModel = fromModel;
+        }
+
+        boolean isStub() {
+            return type.isAnnotationPresent(Stub.class);
+        }
+
+        boolean isScalable() {
+            return type.isAnnotationPresent(ScalableInput.class);
+        }
+    }
+
+    /**
+     * Add or replace the factory of one day, i.e. for a class outside the AdventYYYY packages
+     */
+    public static void register(int year, int day, Class<? extends AdventOfCode> type) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        MethodHandle fromList;
+        try {
+            fromList = lookup.findConstructor(type, MethodType.methodType(void.class, List.class)).asType(FROM_LIST);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " has no public constructor taking a List", e);
+        }
+
+        MethodHandle fromStream = null;
+        try {
+            fromStream = lookup.findConstructor(type, MethodType.methodType(void.class, Stream.class)).asType(FROM_STREAM);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            // optional, days without it are always built from a List
+        }
+
+        MethodHandle fromModel = null;
+        if (BinaryModel.class.isAssignableFrom(type)) {
+            try {
+                fromModel = lookup.findConstructor(type, MethodType.methodType(void.class, DataInputStream.class))
+                        .asType(FROM_MODEL);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // optional, without it the day is always parsed
+            }
+        }
+
+        DAYS.put(key(year, day), new Entry(type, fromList, fromStream, fromModel));
+    }
+
+    // look up AdventYYYY.Day1 through Day25 the first time a year is used
+    private static void scan(int year) {
+        SCANNED_YEARS.computeIfAbsent(year, y -> {
+            for (int day = 1; day <= 25; day++) {
+                if (DAYS.containsKey(key(year, day))) continue;
+                try {
+                    Class<?> type = Class.forName("Advent" + year + ".Day" + day);
+                    if (AdventOfCode.class.isAssignableFrom(type)) {
+                        register(year, day, type.asSubclass(AdventOfCode.class));
+                    }
+                } catch (ClassNotFoundException e) {
+                    // day not created yet
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipping " + year + " day " + day + ": " + e.getMessage());
+                }
+            }
+            return true;
+        });
+    }
+
+    private static Entry entry(int year, int day) {
+        scan(year);
+        return DAYS.get(key(year, day));
+    }
+
+    public static boolean has(int year, int day) {
+        return entry(year, day) != null;
+    }
+
+    public static boolean supportsStreaming(int year, int day) {
+        Entry e = entry(year, day);
+        return e != null && e.fromStream != null;
+    }
+
+    /**
+     * @return true iff the day can be built from a binary model, see ModelCache
+     */
+    public static boolean supportsModel(int year, int day) {
+        Entry e = entry(year, day);
+        return e != null && e.fromModel != null;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the day has no class
+     * @throws RuntimeException wrapping anything thrown by the day's constructor
+     */
+    public static AdventOfCode create(int year, int day, List<String> input) {
+        Entry e = entry(year, day);
+        if (e == null) throw new IllegalArgumentException("No class for " + year + " day " + day);
+        try {
+            return (AdventOfCode) e.fromList.invokeExact(input);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the day has no class or no Stream constructor
+     * @throws RuntimeException wrapping anything thrown by the day's constructor
+     */
+    public static AdventOfCode create(int year, int day, Stream<? extends CharSequence> lines) {
+        Entry e = entry(year, day);
+        if (e == null || e.fromStream == null) {
+            throw new IllegalArgumentException("No streaming class for " + year + " day " + day);
+        }
+        try {
+            return (AdventOfCode) e.fromStream.invokeExact((Stream) lines);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the day has no class or no BinaryModel constructor
+     * @throws RuntimeException wrapping anything thrown by the day's constructor, i.e. an IOException
+     */
+    public static AdventOfCode create(int year, int day, DataInputStream model) {
+        Entry e = entry(year, day);
+        if (e == null || e.fromModel == null) {
+            throw new IllegalArgumentException("No binary model class for " + year + " day " + day);
+        }
+        try {
+            return (AdventOfCode) e.fromModel.invokeExact(model);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    /**
+     * @return true iff the day's class is marked @ScalableInput
+     */
+    public static boolean scalable(int year, int day) {
+        Entry e = entry(year, day);
+        return e != null && e.isScalable();
+    }
+
+    /**
+     * @return days of the given year that have a class and are not marked @Stub
+     */
+    public static List<Integer> implemented(int year) {
+        return days(year, false);
+    }
+
+    /**
+     * @return days of the given year whose class is still marked @Stub
+     */
+    public static List<Integer> stubs(int year) {
+        return days(year, true);
+    }
+
+    private static List<Integer> days(int year, boolean stub) {
+        scan(year);
+        List<Integer> days = new ArrayList<>();
+        for (int day = 1; day <= 25; day++) {
+            Entry e = DAYS.get(key(year, day));
+            if (e != null && e.isStub() == stub) days.add(day);
+        }
+        return days;
+    }
+
+    private static int key(int year, int day) {
+        return year * 100 + day;
+    }
+}
@@ -5,9 +5,12 @@ import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.ProtocolException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,6 +26,10 @@ public class FileIO {
 
     public static String SESSION_ID = System.getenv("SESSION_ID");
 
+    // site puzzle inputs are fetched from, overridden with AOC_BASE_URL i.e. to use a local server
+    public static String BASE_URL = System.getenv("AOC_BASE_URL") != null
+            ? System.getenv("AOC_BASE_URL") : "https://adventofcode.com";
+
     /**
      * Load file into one String - assumes no line feeds
      * i.e. 2015 Day 1, 2015 Day 3
@@ -84,21 +91,21 @@ public class FileIO {
      *
      * if file has already been created, read list from that file instead.
      *
-     * @param year integer year, 2015, 2016 or 2017
+     * @param year integer year, 2015 or later
      * @param day 1 - 25
      * @param sessionID Session cookie information
      * @return
      */
     public static List<String> getAOCInputForDay(int year, int day, String sessionID) {
-        if (year < 2015 || year > 2018) {
+        if (year < 2015) {
             throw new IllegalArgumentException("Year out of range.");
         }
         if (day < 1 || day > 25) {
             throw new IllegalArgumentException("Day out of range");
         }
-        String url = "https://adventofcode.com/" + year +
+        String url = BASE_URL + "/" + year +
                 "/day/" + day + "/input";
-        String filename = "data/Advent" + year + "/advent" + year + "_day" + day + ".txt";
+        String filename = getAOCInputFilename(year, day);
         Path path = Paths.get(filename);
         if (Files.exists(path)) {
             return getFileAsList(filename);
@@ -109,6 +116,46 @@ public class FileIO {
         }
     }
 
+    /**
+     * Memory-map the input for given day/year, downloading and caching it first
+     * if needed. Lines are views onto the mapped file instead of Strings.
+     * @param year integer year
+     * @param day 1 - 25
+     * @param sessionID Session cookie information
+     * @return mapped lines of the input file
+     */
+    public static MappedInput mapAOCInputForDay(int year, int day, String sessionID) {
+        String filename = getAOCInputFilename(year, day);
+        if (!Files.exists(Paths.get(filename))) {
+            getAOCInputForDay(year, day, sessionID);
+        }
+        return mapFile(filename);
+    }
+
+    /**
+     * Memory-map entire file, read-only, and split it into lines without copying
+     * @param filename file in current working directory or full pathname
+     * @return mapped lines, empty if the file could not be read
+     */
+    public static MappedInput mapFile(final String filename) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            return new MappedInput(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+            return new MappedInput(ByteBuffer.allocate(0));
+        }
+    }
+
+    /**
+     * Location of the cached input file for given day/year
+     * @param year integer year
+     * @param day 1 - 25
+     * @return relative path under data/
+     */
+    public static String getAOCInputFilename(int year, int day) {
+        return "data/Advent" + year + "/advent" + year + "_day" + day + ".txt";
+    }
+
     /**
      * Performs given Function on file, one line at a time, and summing the results
      * @param filename file in current working directory or full pathname
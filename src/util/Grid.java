@@ -0,0 +1,116 @@
+package util;
+
+/**
+ * Bounds and growth of a 2D grid stored row-major in one flat primitive array.
+ * Cells are addressed by their own (x, y) coordinates, which may be negative;
+ * the grid keeps track of where its storage starts.
+ *
+ * Bounds checks on get/set can be turned off with AOC_GRID_CHECKS=false, in
+ * which case out-of-range coordinates read and write the wrong cell instead
+ * of throwing.
+ */
+public abstract class Grid {
+
+    protected static final boolean CHECK_BOUNDS = !"false".equals(System.getenv("AOC_GRID_CHECKS"));
+
+    // coordinates of the first stored cell, and size of the stored area
+    protected int originX;
+    protected int originY;
+    protected int width;
+    protected int height;
+
+    protected Grid(int minX, int minY, int width, int height) {
+        if (width < 0 || height < 0) throw new IllegalArgumentException("Negative grid size: " + width + "x" + height);
+        this.originX = minX;
+        this.originY = minY;
+        this.width = width;
+        this.height = height;
+    }
+
+    public int minX() {
+        return originX;
+    }
+
+    public int minY() {
+        return originY;
+    }
+
+    // exclusive
+    public int maxX() {
+        return originX + width;
+    }
+
+    // exclusive
+    public int maxY() {
+        return originY + height;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public boolean inBounds(int x, int y) {
+        return x >= originX && x < originX + width && y >= originY && y < originY + height;
+    }
+
+    /**
+     * Position of (x, y) in the backing array. Moving one row is width() entries.
+     */
+    public int index(int x, int y) {
+        if (CHECK_BOUNDS && !inBounds(x, y)) {
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + ") outside x " + originX + ".." + (maxX() - 1)
+                    + ", y " + originY + ".." + (maxY() - 1));
+        }
+        return (y - originY) * width + (x - originX);
+    }
+
+    /**
+     * Grow the grid so it contains (x, y). Each side that has to move is pushed out
+     * by at least the current width or height, so a walk that keeps stepping
+     * outside copies the grid only a logarithmic number of times.
+     * @return true iff the grid was resized, which invalidates earlier index() values
+     */
+    public boolean ensure(int x, int y) {
+        if (inBounds(x, y)) return false;
+
+        int minX = originX, maxX = originX + width;
+        int minY = originY, maxY = originY + height;
+        int growX = Math.max(width, 1);
+        int growY = Math.max(height, 1);
+
+        if (x < minX) minX = Math.min(x, minX - growX);
+        else if (x >= maxX) maxX = Math.max(x + 1, maxX + growX);
+        if (y < minY) minY = Math.min(y, minY - growY);
+        else if (y >= maxY) maxY = Math.max(y + 1, maxY + growY);
+
+        long cells = (long) (maxX - minX) * (maxY - minY);
+        if (cells > Integer.MAX_VALUE - 8) throw new IllegalStateException("Grid too large: " + cells + " cells");
+
+        Object old = array();
+        Object grown = newArray((int) cells);
+        int newWidth = maxX - minX;
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(old, row * width, grown,
+                    (row + originY - minY) * newWidth + (originX - minX), width);
+        }
+
+        setArray(grown);
+        originX = minX;
+        originY = minY;
+        width = newWidth;
+        height = maxY - minY;
+        return true;
+    }
+
+    // the backing primitive array
+    protected abstract Object array();
+
+    protected abstract void setArray(Object array);
+
+    // new backing array with every cell set to the grid's fill value
+    protected abstract Object newArray(int size);
+}
@@ -0,0 +1,142 @@
+package util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Downloads puzzle inputs asynchronously, with at most a fixed number of requests
+ * in flight at once. Used to fetch every missing input in parallel before any
+ * day runs, instead of one blocking download per day.
+ */
+public class InputFetcher {
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String sessionID;
+    private final int maxConcurrent;
+
+    // requests waiting for a free slot, and the number of requests in flight
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+    private int active = 0;
+
+    /**
+     * @param baseUrl site to fetch from, i.e. FileIO.BASE_URL or a local test server
+     * @param sessionID session cookie information, may be null
+     * @param maxConcurrent maximum number of requests in flight at once
+     */
+    public InputFetcher(String baseUrl, String sessionID, int maxConcurrent) {
+        if (maxConcurrent < 1) throw new IllegalArgumentException("Need at least one concurrent request.");
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.sessionID = sessionID;
+        this.maxConcurrent = maxConcurrent;
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .cookieHandler(new CookieManager())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * Fetcher for FileIO.BASE_URL using SESSION_ID, with AOC_FETCH_CONCURRENCY
+     * requests at once (default 4)
+     */
+    public static InputFetcher fromEnvironment() {
+        String concurrency = System.getenv("AOC_FETCH_CONCURRENCY");
+        return new InputFetcher(FileIO.BASE_URL, FileIO.SESSION_ID,
+                concurrency == null ? 4 : Integer.parseInt(concurrency));
+    }
+
+    /**
+     * Fetch the input of one day without caching it
+     * @return future completing with the lines of the input
+     */
+    public CompletableFuture<List<String>> fetch(int year, int day) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + year + "/day/" + day + "/input"))
+                .timeout(Duration.ofSeconds(30))
+                .GET();
+        if (sessionID != null) request.header("Cookie", sessionID);
+
+        return throttle(() -> client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString()))
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException("Unable to fetch " + year + " day " + day
+                                + ": HTTP " + response.statusCode());
+                    }
+                    return toLines(response.body());
+                });
+    }
+
+    /**
+     * Fetch and cache the input of every solved day up to upToDay whose input is not cached yet
+     * @return future completing once every download has been written to data/
+     */
+    public CompletableFuture<Void> prefetch(int year, int upToDay) {
+        List<CompletableFuture<Void>> downloads = new ArrayList<>();
+        for (int day = 1; day <= upToDay; day++) {
+            String filename = FileIO.getAOCInputFilename(year, day);
+            if (!DayLoader.hasClassForDay(year, day) || Files.exists(Paths.get(filename))) continue;
+
+            downloads.add(fetch(year, day).thenAccept(lines -> {
+                Path dir = Paths.get(filename).getParent();
+                try {
+                    Files.createDirectories(dir);
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+                FileIO.writeListToFile(lines, filename);
+            }));
+        }
+        return CompletableFuture.allOf(downloads.toArray(new CompletableFuture<?>[0]));
+    }
+
+    // start the request now if a slot is free, otherwise once an earlier request finishes
+    private <T> CompletableFuture<T> throttle(Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> request.get().whenComplete((value, error) -> {
+            release();
+            if (error != null) result.completeExceptionally(error);
+            else result.complete(value);
+        });
+
+        boolean startNow;
+        synchronized (this) {
+            startNow = active < maxConcurrent;
+            if (startNow) active++;
+            else waiting.add(start);
+        }
+        if (startNow) start.run();
+        return result;
+    }
+
+    private void release() {
+        Runnable next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) active--;
+        }
+        if (next != null) next.run();
+    }
+
+    // same line splitting as BufferedReader.readLine, dropping the final line feed
+    private static List<String> toLines(String body) {
+        List<String> lines = new ArrayList<>(Arrays.asList(body.split("\r?\n", -1)));
+        if (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) lines.remove(lines.size() - 1);
+        return lines;
+    }
+}
@@ -0,0 +1,58 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Grid of int cells, see Grid
+ */
+public class IntGrid extends Grid {
+
+    private final int fill;
+    private int[] cells;
+
+    public IntGrid(int width, int height) {
+        this(0, 0, width, height, 0);
+    }
+
+    /**
+     * @param fill value of every cell before it is set, including cells added by ensure()
+     */
+    public IntGrid(int minX, int minY, int width, int height, int fill) {
+        super(minX, minY, width, height);
+        this.fill = fill;
+        this.cells = (int[]) newArray(width * height);
+    }
+
+    public int get(int x, int y) {
+        return cells[index(x, y)];
+    }
+
+    public void set(int x, int y, int value) {
+        cells[index(x, y)] = value;
+    }
+
+    /**
+     * The backing array, for loops that walk index() values directly.
+     * Replaced whenever ensure() grows the grid.
+     */
+    public int[] raw() {
+        return cells;
+    }
+
+    @Override
+    protected Object array() {
+        return cells;
+    }
+
+    @Override
+    protected void setArray(Object array) {
+        cells = (int[]) array;
+    }
+
+    @Override
+    protected Object newArray(int size) {
+        int[] array = new int[size];
+        if (fill != 0) Arrays.fill(array, fill);
+        return array;
+    }
+}
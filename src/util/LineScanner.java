@@ -0,0 +1,134 @@
+package util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Pulls numbers and single-character tokens out of a line without allocating,
+ * as a replacement for regex groups and Integer.parseInt in parse() methods.
+ * One scanner can be reused for every line via reset().
+ *
+ * Anything that is not part of a number is skipped when looking for the next
+ * number. A '-' directly in front of a digit is read as a sign.
+ */
+public class LineScanner {
+
+    private CharSequence line;
+    private int pos;
+
+    public LineScanner() {
+        reset("");
+    }
+
+    public LineScanner(CharSequence line) {
+        reset(line);
+    }
+
+    public LineScanner reset(CharSequence line) {
+        this.line = line;
+        this.pos = 0;
+        return this;
+    }
+
+    public int position() {
+        return pos;
+    }
+
+    public void skip(int n) {
+        pos = Math.min(pos + n, line.length());
+    }
+
+    /**
+     * Advance to the start of the next number
+     * @return true iff a number remains on the line
+     */
+    public boolean hasNextInt() {
+        int len = line.length();
+        while (pos < len) {
+            char c = line.charAt(pos);
+            if (isDigit(c)) return true;
+            if (c == '-' && pos + 1 < len && isDigit(line.charAt(pos + 1))) return true;
+            pos++;
+        }
+        return false;
+    }
+
+    public int nextInt() {
+        long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    public long nextLong() {
+        if (!hasNextInt()) throw new NoSuchElementException("No number left on line: " + line);
+
+        boolean negative = line.charAt(pos) == '-';
+        if (negative) pos++;
+
+        // accumulate negatively so Long.MIN_VALUE can be read
+        long value = 0;
+        int len = line.length();
+        while (pos < len && isDigit(line.charAt(pos))) {
+            int digit = line.charAt(pos++) - '0';
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("Value out of long range on line: " + line);
+            }
+            value = value * 10 - digit;
+        }
+
+        if (negative) return value;
+        if (value == Long.MIN_VALUE) throw new NumberFormatException("Value out of long range on line: " + line);
+        return -value;
+    }
+
+    /**
+     * Read up to dest.length numbers into dest
+     * @return number of values read
+     */
+    public int nextInts(int[] dest) {
+        int n = 0;
+        while (n < dest.length && hasNextInt()) {
+            dest[n++] = nextInt();
+        }
+        return n;
+    }
+
+    /**
+     * @return next character that is not whitespace
+     */
+    public char nextChar() {
+        int len = line.length();
+        while (pos < len && Character.isWhitespace(line.charAt(pos))) pos++;
+        if (pos >= len) throw new NoSuchElementException("No character left on line: " + line);
+        return line.charAt(pos++);
+    }
+
+    /**
+     * Advance to the next token made of exactly one non-whitespace character,
+     * i.e. the step names in "Step C must be finished before step A can begin."
+     * @return true iff such a token remains on the line
+     */
+    public boolean hasNextCharToken() {
+        int len = line.length();
+        while (pos < len) {
+            while (pos < len && Character.isWhitespace(line.charAt(pos))) pos++;
+            int start = pos;
+            while (pos < len && !Character.isWhitespace(line.charAt(pos))) pos++;
+            if (pos - start == 1) {
+                pos = start;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public char nextCharToken() {
+        if (!hasNextCharToken()) throw new NoSuchElementException("No single-character token left on line: " + line);
+        return line.charAt(pos++);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
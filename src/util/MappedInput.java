@@ -0,0 +1,166 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Lines of a memory-mapped input file. Each line is a view onto the mapped
+ * bytes, so no String is created unless toString() is called. Puzzle input is
+ * ASCII, so every byte is read as one char.
+ */
+public class MappedInput extends AbstractList<MappedInput.Line> {
+
+    private final ByteBuffer buffer;
+    // start offset of each line, plus a final entry one past the last line's terminator,
+    // built on the first get() or size() since stream() and iterator() do not need it
+    private int[] starts;
+    private int count;
+
+    MappedInput(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    private void index() {
+        if (starts != null) return;
+
+        int[] offsets = new int[16];
+        int n = 0;
+        int limit = buffer.limit();
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                if (n + 1 >= offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                offsets[n++] = lineStart;
+                lineStart = i + 1;
+            }
+        }
+        // last line without a trailing line feed
+        if (lineStart < limit) {
+            if (n + 1 >= offsets.length) offsets = Arrays.copyOf(offsets, offsets.length + 1);
+            offsets[n++] = lineStart;
+            lineStart = limit + 1;
+        }
+        offsets[n] = lineStart;
+
+        this.count = n;
+        this.starts = offsets;
+    }
+
+    @Override
+    public int size() {
+        index();
+        return count;
+    }
+
+    @Override
+    public Line get(int index) {
+        index();
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Line " + index + " of " + count);
+        return line(starts[index], starts[index + 1] - 1); // drop the line feed
+    }
+
+    // line from start up to end, without a carriage return before end
+    private Line line(int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r') end--;
+        return new Line(buffer, start, end - start);
+    }
+
+    /**
+     * Lines in order, each found by scanning on from the end of the previous
+     * one, so a single pass over the file never builds the line index
+     */
+    @Override
+    public Iterator<Line> iterator() {
+        return new Iterator<Line>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < buffer.limit();
+            }
+
+            @Override
+            public Line next() {
+                int limit = buffer.limit();
+                if (next >= limit) throw new NoSuchElementException();
+                int start = next;
+                int end = start;
+                while (end < limit && buffer.get(end) != '\n') end++;
+                next = end + 1;
+                return line(start, end);
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<Line> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * @return the lines copied into Strings, for code that still needs a List of String
+     */
+    public List<String> toStrings() {
+        index();
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = get(i).toString();
+        }
+        return Arrays.asList(lines);
+    }
+
+    /**
+     * A zero-copy view of one line of the mapped file
+     */
+    public static class Line implements CharSequence {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int length;
+
+        Line(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public byte byteAt(int index) {
+            return buffer.get(offset + index);
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) throw new IndexOutOfBoundsException("Index " + index + " of " + length);
+            return (char) (buffer.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") of " + length);
+            }
+            return new Line(buffer, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(offset + i);
+            }
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Wall time, CPU time and allocated bytes of one phase, measured on the calling thread.
+ * CPU time and allocated bytes are -1 if the JVM cannot report them.
+ */
+public class Measurement {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    public final Phase phase;
+    public final long wallNanos;
+    public final long cpuNanos;
+    public final long allocatedBytes;
+
+    private Measurement(Phase phase, long wallNanos, long cpuNanos, long allocatedBytes) {
+        this.phase = phase;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public static Probe start() {
+        return new Probe();
+    }
+
+    /**
+     * Snapshot of the current thread's counters, taken when a phase begins
+     */
+    public static class Probe {
+        private final long wall;
+        private final long cpu;
+        private final long allocated;
+
+        private Probe() {
+            this.allocated = allocatedBytes();
+            this.cpu = cpuNanos();
+            this.wall = System.nanoTime();
+        }
+
+        public Measurement stop(Phase phase) {
+            long wallEnd = System.nanoTime();
+            long cpuEnd = cpuNanos();
+            long allocatedEnd = allocatedBytes();
+            return new Measurement(phase,
+                    wallEnd - wall,
+                    (cpu < 0 || cpuEnd < 0) ? -1 : cpuEnd - cpu,
+                    (allocated < 0 || allocatedEnd < 0) ? -1 : allocatedEnd - allocated);
+        }
+    }
+
+    private static long cpuNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("wall %.3f ms, cpu %.3f ms, alloc %.1f KB",
+                wallNanos / 1e6, cpuNanos / 1e6, allocatedBytes / 1024.0);
+    }
+}
@@ -0,0 +1,85 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Collects per-phase measurements of each day so they can be saved as CSV or JSON
+ * for tracking performance over time. Safe to fill from several threads.
+ */
+public class MetricsReport {
+
+    private final List<Row> rows = Collections.synchronizedList(new ArrayList<>());
+
+    private static class Row {
+        final int year;
+        final int day;
+        final Measurement m;
+
+        Row(int year, int day, Measurement m) {
+            this.year = year;
+            this.day = day;
+            this.m = m;
+        }
+    }
+
+    public void add(int year, int day, Measurement m) {
+        if (m != null) rows.add(new Row(year, day, m));
+    }
+
+    public void add(int year, int day, AdventOfCode challenge) {
+        for (Phase phase : Phase.values()) {
+            add(year, day, challenge.getMeasurement(phase));
+        }
+    }
+
+    public boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    // rows ordered by date, then phase, regardless of the order days finished in
+    private List<Row> sorted() {
+        List<Row> copy;
+        synchronized (rows) {
+            copy = new ArrayList<>(rows);
+        }
+        copy.sort(Comparator.<Row>comparingInt(r -> r.year)
+                .thenComparingInt(r -> r.day)
+                .thenComparing(r -> r.m.phase));
+        return copy;
+    }
+
+    public List<String> toCsv() {
+        List<String> lines = new ArrayList<>();
+        lines.add("year,day,phase,wall_ns,cpu_ns,allocated_bytes");
+        for (Row r : sorted()) {
+            lines.add(r.year + "," + r.day + "," + r.m.phase + ","
+                    + r.m.wallNanos + "," + r.m.cpuNanos + "," + r.m.allocatedBytes);
+        }
+        return lines;
+    }
+
+    public List<String> toJson() {
+        List<String> lines = new ArrayList<>();
+        List<Row> sorted = sorted();
+        lines.add("[");
+        for (int i = 0; i < sorted.size(); i++) {
+            Row r = sorted.get(i);
+            lines.add("  {\"year\": " + r.year + ", \"day\": " + r.day + ", \"phase\": \"" + r.m.phase + "\""
+                    + ", \"wall_ns\": " + r.m.wallNanos + ", \"cpu_ns\": " + r.m.cpuNanos
+                    + ", \"allocated_bytes\": " + r.m.allocatedBytes + "}"
+                    + (i < sorted.size() - 1 ? "," : ""));
+        }
+        lines.add("]");
+        return lines;
+    }
+
+    /**
+     * Write the report to the given file, as JSON if it ends in .json, otherwise as CSV
+     */
+    public void write(String filename) {
+        FileIO.writeListToFile(filename.endsWith(".json") ? toJson() : toCsv(), filename);
+    }
+}
@@ -0,0 +1,125 @@
+package util;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Binary sidecar files holding the parsed model of a day, stored next to the
+ * cached text input as data/AdventYYYY/adventYYYY_dayN.bin. Each file starts
+ * with the size and modification time of the text file it was built from, so
+ * it can be checked without reading the text, and is ignored once the text
+ * changes. Only DayLoader uses it, for the cached input of a day; days built
+ * from any other input never touch it.
+ *
+ * Off by default, since for small inputs parsing is as fast as reading the
+ * sidecar. Set AOC_MODEL_CACHE=true to use it.
+ */
+public class ModelCache {
+
+    private static final int MAGIC = 0x414F4322; // "AOC" + layout of this header
+
+    private static volatile boolean enabled = "true".equals(System.getenv("AOC_MODEL_CACHE"));
+
+    private ModelCache() {}
+
+    public static void setEnabled(boolean enabled) {
+        ModelCache.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Size and modification time of a text input, taken before it is read
+     */
+    static final class Stamp {
+        final long size;
+        final long modified;
+
+        private Stamp(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        /**
+         * @return stamp of the file, or null if it does not exist
+         */
+        static Stamp of(Path text) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(text, BasicFileAttributes.class);
+                return new Stamp(attributes.size(), attributes.lastModifiedTime().toMillis());
+            } catch (IOException ioe) {
+                return null;
+            }
+        }
+
+        boolean matches(Stamp other) {
+            return other != null && size == other.size && modified == other.modified;
+        }
+    }
+
+    /**
+     * Build the day straight from the sidecar of its text input with a single read
+     * @return the day, or null if there is no sidecar matching the text file as it is now
+     */
+    static AdventOfCode load(int year, int day, Path text) {
+        Path path = sidecarFor(text);
+        Stamp stamp = Stamp.of(text);
+        if (!enabled || stamp == null || !Files.exists(path)) return null;
+
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)));
+            if (in.readInt() != MAGIC) return null;
+            int version = in.readInt();
+            if (!stamp.matches(new Stamp(in.readLong(), in.readLong()))) return null;
+
+            AdventOfCode challenge = DayRegistry.create(year, day, in);
+            // a sidecar of another layout may still read without error, but is of no use
+            return ((BinaryModel) challenge).modelVersion() == version ? challenge : null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable model cache " + path + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Write the model of a day just parsed from the given text input, unless the
+     * text changed since it was stamped
+     * @param stamp of the text taken before it was read, or null if it was downloaded just now
+     */
+    static void store(BinaryModel model, Path text, Stamp stamp) {
+        Stamp current = Stamp.of(text);
+        if (!enabled || current == null || (stamp != null && !stamp.matches(current))) return;
+
+        // write to a temporary file first so concurrent runs never read a partial file
+        Path path = sidecarFor(text);
+        Path tmp = path.resolveSibling(path.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(model.modelVersion());
+            out.writeLong(current.size);
+            out.writeLong(current.modified);
+            model.writeModel(out);
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+            return;
+        }
+
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    // adventYYYY_dayN.bin next to adventYYYY_dayN.txt
+    private static Path sidecarFor(Path text) {
+        String name = text.getFileName().toString();
+        if (name.endsWith(".txt")) name = name.substring(0, name.length() - ".txt".length());
+        return text.resolveSibling(name + ".bin");
+    }
+}
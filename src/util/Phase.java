@@ -0,0 +1,8 @@
+package util;
+
+/**
+ * The separately measured stages of solving a day
+ */
+public enum Phase {
+    PARSE, PART1, PART2
+}
@@ -1,23 +1,224 @@
 package util;
 
+import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class Runner {
 
+    // set AOC_PARALLEL_PARTS=true to run part1 and part2 of each day in parallel
+    private static final boolean PARALLEL_PARTS = "true".equals(System.getenv("AOC_PARALLEL_PARTS"));
+
+    // set AOC_STREAMING=true to let days that support it parse their memory-mapped input line by line
+    private static final boolean STREAMING = "true".equals(System.getenv("AOC_STREAMING"));
+
+    // per-phase timings of every day run, written to AOC_METRICS (.csv or .json) if set
+    private static final MetricsReport METRICS = new MetricsReport();
+
+    /**
+     * Run every day up to upToDay concurrently on the executor chosen by the
+     * AOC_EXECUTOR environment variable: "forkjoin" (default), "virtual" or "sequential"
+     */
     public static void runAll(int year, int upToDay) {
+        ExecutorService executor = newExecutor(System.getenv("AOC_EXECUTOR"));
+        try {
+            runAll(year, upToDay, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Schedule each day on the given executor. Output of each day is buffered
+     * and printed in day order once that day (and all days before it) are done.
+     */
+    public static void runAll(int year, int upToDay, ExecutorService executor) {
+        // download all missing inputs at once rather than one by one as days start
+        try {
+            InputFetcher.fromEnvironment().prefetch(year, upToDay).join();
+        } catch (CompletionException e) {
+            System.err.println("Prefetching inputs failed, missing days will be fetched on demand: " + e.getCause());
+        }
+
+        List<Future<String>> results = new ArrayList<>();
         for (int i = 1; i <= upToDay; i++) {
-            run(year, i);
+            final int day = i;
+            results.add(executor.submit(() -> {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                PrintStream out = new PrintStream(buffer, true);
+                run(year, day, out);
+                return buffer.toString();
+            }));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                System.out.print(results.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for day " + (i + 1), e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Day " + (i + 1) + " failed", e.getCause());
+            }
         }
     }
 
+    private static ExecutorService newExecutor(String kind) {
+        if ("sequential".equals(kind)) {
+            return Executors.newSingleThreadExecutor();
+        }
+        if ("virtual".equals(kind)) {
+            // only available on JDK 21+, so look it up reflectively
+            try {
+                return (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+                System.err.println("Virtual threads not available, using fork-join pool");
+            }
+        }
+        return new ForkJoinPool();
+    }
+
     private static void run(int year, int day) {
-        AdventOfCode challenge = DayLoader.getClassForDay(year, day);
+        run(year, day, System.out);
+    }
+
+    private static void run(int year, int day, PrintStream out) {
+        if (PARALLEL_PARTS) {
+            runPartsConcurrently(year, day, out);
+            return;
+        }
+        AdventOfCode challenge = STREAMING
+                ? DayLoader.getStreamingClassForDay(year, day)
+                : DayLoader.getClassForDay(year, day);
         if (challenge == null) throw new RuntimeException("Unable to load class/input");
-        //Timer.startTimer();
-        System.out.println("<===== Advent of Code challenge output for Year: " + year + " - Day " + day + " =====>");
-        challenge.run();
-        //System.out.println(timer.endTimer());
+        run(year, day, challenge, out);
+        METRICS.add(year, day, challenge);
+    }
+
+    // print both answers of an already parsed day, with its timings; not added to METRICS,
+    // so a long-lived caller such as Daemon does not collect rows that are never written
+    static void run(int year, int day, AdventOfCode challenge, PrintStream out) {
+        out.println("<===== Advent of Code challenge output for Year: " + year + " - Day " + day + " =====>");
+        out.println("Parsed input    [" + challenge.getMeasurement(Phase.PARSE) + "]");
+        challenge.run(out);
+    }
+
+    /**
+     * Run part1() and part2() at the same time, each on its own instance parsed
+     * from the same read-only input. Falls back to running both parts in sequence
+     * on one instance if the day says its parts share state, or if part2() fails
+     * without the state part1() would have left behind.
+     */
+    private static void runPartsConcurrently(int year, int day, PrintStream out) {
+        List<String> input = Collections.unmodifiableList(FileIO.getAOCInputForDay(year, day, FileIO.SESSION_ID));
+        AdventOfCode first = DayLoader.getClassForDay(year, day, input);
+        if (first == null) throw new RuntimeException("Unable to load class/input");
+        first.setOut(out);
+        out.println("<===== Advent of Code challenge output for Year: " + year + " - Day " + day + " =====>");
+        out.println("Parsed input    [" + first.getMeasurement(Phase.PARSE) + "]");
+
+        if (!first.partsIndependent()) {
+            first.run(out);
+            METRICS.add(year, day, first);
+            return;
+        }
+
+        CompletableFuture<PartResult> second = CompletableFuture.supplyAsync(() -> {
+            AdventOfCode challenge = DayLoader.getClassForDay(year, day, input);
+            challenge.setOut(out);
+            Object answer = challenge.solvePart2();
+            return new PartResult(answer, challenge.getMeasurement(Phase.PART2));
+        });
+        Object part1 = first.solvePart1();
+        PartResult part2;
+        try {
+            part2 = second.join();
+        } catch (CompletionException e) {
+            System.err.println("Part 2 of day " + day + " failed on a fresh instance, running it after part 1 instead");
+            Object answer = first.solvePart2();
+            part2 = new PartResult(answer, first.getMeasurement(Phase.PART2));
+        }
+
+        out.println(first.part1Description + part1.toString() + "    [" + first.getMeasurement(Phase.PART1) + "]");
+        out.println(first.part2Description + part2.answer.toString() + "    [" + part2.measurement + "]");
+        METRICS.add(year, day, first.getMeasurement(Phase.PARSE));
+        METRICS.add(year, day, first.getMeasurement(Phase.PART1));
+        METRICS.add(year, day, part2.measurement);
+    }
+
+    /**
+     * Instantiate and solve the given day warmup + iterations times through DayLoader,
+     * then print min, median and p99 of each phase over the measured iterations.
+     * @param budgetMillis maximum allowed p99 of parse + part1 + part2, or 0 for no budget
+     * @return false iff the budget was exceeded
+     */
+    public static boolean benchmark(int year, int day, int iterations, int warmup, double budgetMillis) {
+        if (iterations < 1 || warmup < 0) throw new IllegalArgumentException("Need at least one measured iteration.");
+        List<String> input = Collections.unmodifiableList(FileIO.getAOCInputForDay(year, day, FileIO.SESSION_ID));
+
+        long[][] samples = new long[Phase.values().length + 1][iterations]; // last row: total
+        for (int i = -warmup; i < iterations; i++) {
+            AdventOfCode challenge = DayLoader.getClassForDay(year, day, input);
+            if (challenge == null) throw new RuntimeException("Unable to load class/input");
+            challenge.solvePart1();
+            challenge.solvePart2();
+            if (i < 0) continue;
+
+            long total = 0;
+            for (Phase phase : Phase.values()) {
+                long wall = challenge.getMeasurement(phase).wallNanos;
+                samples[phase.ordinal()][i] = wall;
+                total += wall;
+            }
+            samples[Phase.values().length][i] = total;
+        }
+
+        System.out.println("<===== Benchmark for Year: " + year + " - Day " + day + " (" + iterations
+                + " iterations, " + warmup + " warm-up) =====>");
+        for (Phase phase : Phase.values()) {
+            printStats(phase.toString(), samples[phase.ordinal()]);
+        }
+        double p99Total = printStats("TOTAL", samples[Phase.values().length]);
+
+        if (budgetMillis > 0 && p99Total > budgetMillis) {
+            System.out.printf("Budget exceeded: p99 %.3f ms > %.3f ms%n", p99Total, budgetMillis);
+            return false;
+        }
+        return true;
+    }
+
+    // prints min, median and p99 in milliseconds, returning p99
+    private static double printStats(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double min = sorted[0] / 1e6;
+        double median = sorted[(sorted.length - 1) / 2] / 1e6;
+        double p99 = sorted[(int) Math.ceil(0.99 * sorted.length) - 1] / 1e6;
+        System.out.printf("%-6s min %10.3f ms   median %10.3f ms   p99 %10.3f ms%n", label, min, median, p99);
+        return p99;
+    }
+
+    private static class PartResult {
+        final Object answer;
+        final Measurement measurement;
+
+        PartResult(Object answer, Measurement measurement) {
+            this.answer = answer;
+            this.measurement = measurement;
+        }
     }
 
     public static void main(String[] args) {
@@ -30,7 +231,26 @@ public class Runner {
             }));
         }
 
+        // AOC_BENCHMARK=iterations[,warmup] measures steady-state timings instead,
+        // failing the run if AOC_BUDGET_MS is set and exceeded
+        String benchmark = System.getenv("AOC_BENCHMARK");
+        if (benchmark != null) {
+            String[] counts = benchmark.split(",");
+            int iterations = Integer.parseInt(counts[0].trim());
+            int warmup = counts.length > 1 ? Integer.parseInt(counts[1].trim()) : iterations / 2;
+            String budget = System.getenv("AOC_BUDGET_MS");
+            if (!benchmark(2018, 7, iterations, warmup, budget == null ? 0 : Double.parseDouble(budget))) {
+                System.exit(1);
+            }
+            return;
+        }
+
         run(2018, 7);
         //runAll(2018, 2);
+
+        String metricsFile = System.getenv("AOC_METRICS");
+        if (metricsFile != null && !METRICS.isEmpty()) {
+            METRICS.write(metricsFile);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,16 @@
+package util;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a day whose input is a list of independent records, so repeating the
+ * input several times still gives a valid (larger) input. Benchmarks only
+ * scale the inputs of days marked this way.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ScalableInput {
+}
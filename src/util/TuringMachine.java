@@ -0,0 +1,206 @@
+package util;
+
+/**
+ * Two-symbol Turing machine on an unbounded tape of zeroes. The rules are
+ * compiled into tables indexed by (state << 1 | value), and the tape is a
+ * bitset that grows in whichever direction the head walks off it, so a step
+ * is a handful of array loads and the checksum is kept as a running count.
+ *
+ * With setBlockWidth() the tape is also seen as aligned blocks of that many
+ * bits, and the machine moves a whole block at a time: the effect of running
+ * from (state, block contents, head offset) until the head leaves the block is
+ * worked out once, remembered, and then applied with a single lookup. Near the
+ * end of a run, and for loops that never leave their block, it steps one cell
+ * at a time as usual, so both modes give the same results.
+ */
+public class TuringMachine {
+
+    // what to write, how far to move (-1 or 1) and which state follows, per (state << 1 | value)
+    private final int[] write;
+    private final int[] move;
+    private final int[] next;
+    private final int states;
+
+    // 0 for single steps, otherwise bits per block and the memo for that width
+    private int blockWidth;
+    private long[] memo;
+
+    private long[] tape;
+    private int head;   // bit index of the head in tape
+    private int origin; // bit index of position 0 in tape
+    private int state;
+    private long ones;
+
+    /**
+     * @param write value written for (state << 1 | current value)
+     * @param move -1 (left) or 1 (right) for (state << 1 | current value)
+     * @param next state that follows (state << 1 | current value)
+     * @param start initial state
+     */
+    public TuringMachine(int[] write, int[] move, int[] next, int start) {
+        if (write.length != move.length || write.length != next.length || (write.length & 1) != 0) {
+            throw new IllegalArgumentException("Need one rule per state and value.");
+        }
+        int states = write.length >> 1;
+        for (int i = 0; i < write.length; i++) {
+            if ((write[i] & ~1) != 0) throw new IllegalArgumentException("Can only write 0 or 1, not " + write[i]);
+            if (move[i] != -1 && move[i] != 1) throw new IllegalArgumentException("Can only move one slot, not " + move[i]);
+            if (next[i] < 0 || next[i] >= states) throw new IllegalArgumentException("Unknown next state " + next[i]);
+        }
+        if (start < 0 || start >= states) throw new IllegalArgumentException("Unknown start state " + start);
+
+        this.write = write.clone();
+        this.move = move.clone();
+        this.next = next.clone();
+        this.states = states;
+        this.tape = new long[16];
+        this.origin = tape.length << 5; // middle of the tape
+        this.head = origin;
+        this.state = start;
+    }
+
+    /**
+     * Switch between single steps (0) and whole blocks of the given width
+     * @param width 0, or a power of two from 2 to 16
+     */
+    public void setBlockWidth(int width) {
+        if (width != 0 && (width < 2 || width > 16 || Integer.bitCount(width) != 1)) {
+            throw new IllegalArgumentException("Block width must be 0 or a power of two from 2 to 16, not " + width);
+        }
+        if (width != 0 && (states > 0x7FFF || (long) states * width << width > 1 << 24)) {
+            throw new IllegalArgumentException("Too many states for blocks of " + width + " bits");
+        }
+        if (width != blockWidth) memo = width == 0 ? null : new long[states * width << width];
+        blockWidth = width;
+    }
+
+    /**
+     * Perform the given number of steps
+     */
+    public void run(long steps) {
+        if (blockWidth == 0) {
+            step(steps);
+            return;
+        }
+
+        int width = blockWidth;
+        int shift = Integer.numberOfTrailingZeros(width);
+        long blockMask = (1L << width) - 1;
+        long remaining = steps;
+
+        while (remaining > 0) {
+            int offset = head & (width - 1);
+            int start = head - offset;
+            int word = start >>> 6;
+            int bit = start & 63;
+            int contents = (int) (tape[word] >>> bit & blockMask);
+
+            int key = ((state << shift | offset) << width) | contents;
+            long effect = memo[key];
+            if (effect == 0) effect = memo[key] = simulate(state, contents, offset);
+            long taken = effect >>> 32;
+            if (effect == NEVER_LEAVES || taken > remaining) {
+                step(remaining);
+                return;
+            }
+
+            int written = (int) (effect & blockMask);
+            tape[word] = (tape[word] & ~(blockMask << bit)) | ((long) written << bit);
+            ones += Integer.bitCount(written) - Integer.bitCount(contents);
+            state = (int) (effect >>> 17) & 0x7FFF;
+            head = (effect & LEAVES_RIGHT) != 0 ? start + width : start - 1;
+            remaining -= taken;
+
+            if (head < 0 || head >= tape.length << 6) grow();
+        }
+    }
+
+    // effect of running until the head leaves the block: steps taken << 32 | state after << 17
+    // | LEAVES_RIGHT if it left to the right | block contents after
+    private static final long LEAVES_RIGHT = 1L << 16;
+    private static final long NEVER_LEAVES = -1L;
+
+    private long simulate(int state, int contents, int offset) {
+        int width = blockWidth;
+        // more steps than the block has configurations means it is looping
+        long limit = (long) states * width << width;
+        long taken = 0;
+        while (offset >= 0 && offset < width) {
+            if (taken++ == limit) return NEVER_LEAVES;
+            int value = contents >>> offset & 1;
+            int rule = state << 1 | value;
+            contents = (contents & ~(1 << offset)) | (write[rule] << offset);
+            offset += move[rule];
+            state = next[rule];
+        }
+        return taken << 32 | (long) state << 17 | (offset >= width ? LEAVES_RIGHT : 0) | contents;
+    }
+
+    // one cell at a time
+    private void step(long steps) {
+        int[] write = this.write;
+        int[] move = this.move;
+        int[] next = this.next;
+
+        long[] tape = this.tape;
+        int head = this.head;
+        int state = this.state;
+        long ones = this.ones;
+        int bits = tape.length << 6;
+
+        for (long i = 0; i < steps; i++) {
+            int word = head >>> 6;
+            long mask = 1L << head;
+            int value = (tape[word] & mask) != 0 ? 1 : 0;
+            int rule = state << 1 | value;
+
+            int written = write[rule];
+            if (written != value) tape[word] ^= mask;
+            ones += written - value;
+
+            head += move[rule];
+            state = next[rule];
+
+            if (head < 0 || head >= bits) {
+                this.head = head;
+                grow();
+                tape = this.tape;
+                head = this.head;
+                bits = tape.length << 6;
+            }
+        }
+
+        this.head = head;
+        this.state = state;
+        this.ones = ones;
+    }
+
+    // triples the tape, keeping the old contents in the middle
+    private void grow() {
+        if (tape.length > (Integer.MAX_VALUE >> 6) / 3) throw new IllegalStateException("Tape too long");
+        long[] grown = new long[tape.length * 3];
+        System.arraycopy(tape, 0, grown, tape.length, tape.length);
+        int shift = tape.length << 6;
+        head += shift;
+        origin += shift;
+        tape = grown;
+    }
+
+    /**
+     * @return number of 1s on the tape
+     */
+    public long ones() {
+        return ones;
+    }
+
+    /**
+     * @return head position relative to where it started
+     */
+    public int position() {
+        return head - origin;
+    }
+
+    public int state() {
+        return state;
+    }
+}
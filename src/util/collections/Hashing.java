@@ -0,0 +1,42 @@
+package util.collections;
+
+/**
+ * Hash mixing shared by the open-addressing collections. Keys such as
+ * consecutive tape positions would otherwise fill neighbouring slots and
+ * make linear probing slow.
+ */
+final class Hashing {
+
+    private Hashing() {}
+
+    // finalizer of MurmurHash3
+    static int mix(int key) {
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    static int mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    // smallest power of two table that holds expectedSize keys at most half full
+    static int capacityFor(int expectedSize) {
+        int capacity = 8;
+        while (capacity < expectedSize * 2) {
+            if (capacity >= 1 << 30) throw new IllegalStateException("Too many entries: " + expectedSize);
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,54 @@
+package util.collections;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints
+ */
+public class IntArrayList {
+
+    private int[] values;
+    private int size;
+
+    public IntArrayList() {
+        this(16);
+    }
+
+    public IntArrayList(int initialCapacity) {
+        values = new int[Math.max(initialCapacity, 1)];
+    }
+
+    public void add(int value) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        return values[index];
+    }
+
+    public void set(int index, int value) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        values[index] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return copy of the values, exactly size() long
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,118 @@
+package util.collections;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive ints using open addressing with linear probing.
+ * 0 marks a free slot, so whether 0 itself is in the set is tracked separately.
+ */
+public class IntHashSet {
+
+    private static final int FREE = 0;
+
+    private int[] keys;
+    private boolean hasFree;
+    private int size;
+
+    public IntHashSet() {
+        this(8);
+    }
+
+    public IntHashSet(int expectedSize) {
+        keys = new int[Hashing.capacityFor(expectedSize)];
+    }
+
+    /**
+     * @return true iff the key was not already in the set
+     */
+    public boolean add(int key) {
+        if (key == FREE) {
+            if (hasFree) return false;
+            hasFree = true;
+            size++;
+            return true;
+        }
+
+        int mask = keys.length - 1;
+        int idx = Hashing.mix(key) & mask;
+        while (keys[idx] != FREE) {
+            if (keys[idx] == key) return false;
+            idx = (idx + 1) & mask;
+        }
+        keys[idx] = key;
+        if (++size * 2 > keys.length) rehash(keys.length * 2);
+        return true;
+    }
+
+    public boolean contains(int key) {
+        if (key == FREE) return hasFree;
+
+        int mask = keys.length - 1;
+        int idx = Hashing.mix(key) & mask;
+        while (keys[idx] != FREE) {
+            if (keys[idx] == key) return true;
+            idx = (idx + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return true iff the key was in the set
+     */
+    public boolean remove(int key) {
+        if (key == FREE) {
+            if (!hasFree) return false;
+            hasFree = false;
+            size--;
+            return true;
+        }
+
+        int mask = keys.length - 1;
+        int idx = Hashing.mix(key) & mask;
+        while (keys[idx] != key) {
+            if (keys[idx] == FREE) return false;
+            idx = (idx + 1) & mask;
+        }
+
+        // shift later keys of the same probe run back into the gap
+        int gap = idx;
+        idx = (idx + 1) & mask;
+        while (keys[idx] != FREE) {
+            int ideal = Hashing.mix(keys[idx]) & mask;
+            if (((idx - ideal) & mask) >= ((idx - gap) & mask)) {
+                keys[gap] = keys[idx];
+                gap = idx;
+            }
+            idx = (idx + 1) & mask;
+        }
+        keys[gap] = FREE;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        hasFree = false;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = keys;
+        keys = new int[capacity];
+        int mask = capacity - 1;
+        for (int key : old) {
+            if (key == FREE) continue;
+            int idx = Hashing.mix(key) & mask;
+            while (keys[idx] != FREE) idx = (idx + 1) & mask;
+            keys[idx] = key;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package util.collections;
+
+import java.util.Arrays;
+
+/**
+ * Map from primitive long keys to primitive int values using open addressing
+ * with linear probing. 0 marks a free slot, so the entry for key 0 is kept
+ * separately.
+ */
+public class LongIntHashMap {
+
+    private static final long FREE = 0;
+
+    private long[] keys;
+    private int[] values;
+    private boolean hasFree;
+    private int freeValue;
+    private int size;
+
+    public LongIntHashMap() {
+        this(8);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Hashing.capacityFor(expectedSize);
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * @return value mapped to key, or defaultValue if there is none
+     */
+    public int get(long key, int defaultValue) {
+        if (key == FREE) return hasFree ? freeValue : defaultValue;
+
+        int mask = keys.length - 1;
+        int idx = Hashing.mix(key) & mask;
+        while (keys[idx] != FREE) {
+            if (keys[idx] == key) return values[idx];
+            idx = (idx + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == FREE) return hasFree;
+
+        int mask = keys.length - 1;
+        int idx = Hashing.mix(key) & mask;
+        while (keys[idx] != FREE) {
+            if (keys[idx] == key) return true;
+            idx = (idx + 1) & mask;
+        }
+        return false;
+    }
+
+    public void put(long key, int value) {
+        if (key == FREE) {
+            if (!hasFree) size++;
+            hasFree = true;
+            freeValue = value;
+            return;
+        }
+
+        int mask = keys.length - 1;
+        int idx = Hashing.mix(key) & mask;
+        while (keys[idx] != FREE) {
+            if (keys[idx] == key) {
+                values[idx] = value;
+                return;
+            }
+            idx = (idx + 1) & mask;
+        }
+        keys[idx] = key;
+        values[idx] = value;
+        if (++size * 2 > keys.length) rehash(keys.length * 2);
+    }
+
+    /**
+     * @return true iff the key had a value
+     */
+    public boolean remove(long key) {
+        if (key == FREE) {
+            if (!hasFree) return false;
+            hasFree = false;
+            size--;
+            return true;
+        }
+
+        int mask = keys.length - 1;
+        int idx = Hashing.mix(key) & mask;
+        while (keys[idx] != key) {
+            if (keys[idx] == FREE) return false;
+            idx = (idx + 1) & mask;
+        }
+
+        // shift later entries of the same probe run back into the gap
+        int gap = idx;
+        idx = (idx + 1) & mask;
+        while (keys[idx] != FREE) {
+            int ideal = Hashing.mix(keys[idx]) & mask;
+            if (((idx - ideal) & mask) >= ((idx - gap) & mask)) {
+                keys[gap] = keys[idx];
+                values[gap] = values[idx];
+                gap = idx;
+            }
+            idx = (idx + 1) & mask;
+        }
+        keys[gap] = FREE;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        hasFree = false;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == FREE) continue;
+            int idx = Hashing.mix(oldKeys[i]) & mask;
+            while (keys[idx] != FREE) idx = (idx + 1) & mask;
+            keys[idx] = oldKeys[i];
+            values[idx] = oldValues[i];
+        }
+    }
+}